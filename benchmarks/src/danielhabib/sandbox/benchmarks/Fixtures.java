@@ -0,0 +1,147 @@
+package danielhabib.sandbox.benchmarks;
+
+import java.util.Random;
+
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.PooledEngine;
+import com.badlogic.gdx.Application;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessFiles;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.Pixmap.Format;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+
+import danielhabib.factory.AEntityBuilder;
+import danielhabib.sandbox.components.BoundsComponent;
+import danielhabib.sandbox.components.MovementComponent;
+import danielhabib.sandbox.components.TextureComponent;
+import danielhabib.sandbox.components.TransformComponent;
+import danielhabib.sandbox.headless.NullGL;
+
+/**
+ * Shared setup: a libGDX environment without a display and generated
+ * entities spread over a square map sized for their count.
+ */
+public class Fixtures {
+	private static boolean initialized;
+
+	public static synchronized void init() {
+		if (initialized) {
+			return;
+		}
+		GdxNativesLoader.load();
+		Gdx.files = new HeadlessFiles();
+		Gdx.gl = Gdx.gl20 = NullGL.create();
+		Gdx.app = NullGL.nothing(Application.class);
+		initialized = true;
+	}
+
+	public static Batch batch() {
+		return NullGL.nothing(Batch.class);
+	}
+
+	/** 32x32 texture with no pixels behind it. */
+	public static Texture texture() {
+		init();
+		return new Texture(new TextureData() {
+			@Override
+			public TextureDataType getType() {
+				return TextureDataType.Custom;
+			}
+
+			@Override
+			public boolean isPrepared() {
+				return true;
+			}
+
+			@Override
+			public void prepare() {
+			}
+
+			@Override
+			public Pixmap consumePixmap() {
+				return null;
+			}
+
+			@Override
+			public boolean disposePixmap() {
+				return false;
+			}
+
+			@Override
+			public void consumeCustomData(int target) {
+			}
+
+			@Override
+			public int getWidth() {
+				return 32;
+			}
+
+			@Override
+			public int getHeight() {
+				return 32;
+			}
+
+			@Override
+			public Format getFormat() {
+				return Format.RGBA8888;
+			}
+
+			@Override
+			public boolean useMipMaps() {
+				return false;
+			}
+
+			@Override
+			public boolean isManaged() {
+				return false;
+			}
+		});
+	}
+
+	/** Gives every cell a transform, movement, texture and bounds. */
+	public static class MovingEntityBuilder extends AEntityBuilder {
+		public MovingEntityBuilder(PooledEngine engine) {
+			super(engine);
+		}
+
+		@Override
+		protected Entity buildInternal(int x, int y, TiledMapTile tile) {
+			return createEntity(x, y, 0, 0);
+		}
+	}
+
+	/** Side of the square map, in meters, that holds {@code entities} tiles. */
+	public static int side(int entities) {
+		return (int) Math.ceil(Math.sqrt(entities));
+	}
+
+	/**
+	 * Adds an entity with a transform, a movement, bounds and a texture on a
+	 * random tile of the map.
+	 */
+	public static Entity addMovingEntity(PooledEngine engine, Random random, int side, TextureRegion region) {
+		Entity entity = engine.createEntity();
+		TransformComponent transform = engine.createComponent(TransformComponent.class);
+		MovementComponent movement = engine.createComponent(MovementComponent.class);
+		BoundsComponent bounds = engine.createComponent(BoundsComponent.class);
+		transform.pos.set(random.nextInt(side) + 0.5f, random.nextInt(side) + 0.5f, random.nextInt(4));
+		movement.velocity.set(random.nextFloat() - 0.5f, random.nextFloat() - 0.5f);
+		bounds.bounds.setSize(1, 1);
+		entity.add(transform);
+		entity.add(movement);
+		entity.add(bounds);
+		if (region != null) {
+			TextureComponent texture = engine.createComponent(TextureComponent.class);
+			texture.region = region;
+			entity.add(texture);
+		}
+		engine.addEntity(entity);
+		return entity;
+	}
+}
@@ -0,0 +1,59 @@
+package danielhabib.sandbox.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+
+import com.badlogic.gdx.files.FileHandle;
+
+/**
+ * Writes square TMX maps with a given number of occupied cells, using the
+ * tilesets and rules of the real levels.
+ */
+public class MapGenerator {
+	private static final String[][] TILESETS = {
+			{ "wall", "box32.png", "identityRule" },
+			{ "apple", "apple32.png", "fruit" },
+			{ "poison", "poison32.png", "poison" },
+			{ "run32", "run32.png", "speed" } };
+
+	/**
+	 * Creates {@code map.tmx} in a fresh temporary directory, next to copies
+	 * of the tileset images found in {@code assets}.
+	 */
+	public static FileHandle generate(FileHandle assets, int cells) throws IOException {
+		File dir = File.createTempFile("map", "");
+		dir.delete();
+		dir.mkdirs();
+		FileHandle target = new FileHandle(dir);
+		for (String[] tileset : TILESETS) {
+			assets.child(tileset[1]).copyTo(target);
+		}
+
+		int side = Fixtures.side(cells);
+		FileHandle map = target.child("map.tmx");
+		Writer writer = map.writer(false, "UTF-8");
+		writer.write("<?xml version=\"1.0\" encoding=\"UTF-8\"?>\n");
+		writer.write("<map version=\"1.0\" orientation=\"orthogonal\" width=\"" + side + "\" height=\"" + side
+				+ "\" tilewidth=\"32\" tileheight=\"32\">\n");
+		for (int i = 0; i < TILESETS.length; i++) {
+			writer.write(" <tileset firstgid=\"" + (i + 1) + "\" name=\"" + TILESETS[i][0]
+					+ "\" tilewidth=\"32\" tileheight=\"32\">\n");
+			writer.write("  <image source=\"" + TILESETS[i][1] + "\" width=\"32\" height=\"32\"/>\n");
+			writer.write("  <tile id=\"0\"><properties><property name=\"rule\" value=\"" + TILESETS[i][2]
+					+ "\"/></properties></tile>\n");
+			writer.write(" </tileset>\n");
+		}
+		writer.write(" <layer name=\"level\" width=\"" + side + "\" height=\"" + side + "\">\n");
+		writer.write("  <data encoding=\"csv\">\n");
+		for (int i = 0; i < side * side; i++) {
+			if (i > 0) {
+				writer.write(i % side == 0 ? ",\n" : ",");
+			}
+			writer.write(i < cells ? String.valueOf(i % TILESETS.length + 1) : "0");
+		}
+		writer.write("\n  </data>\n </layer>\n</map>\n");
+		writer.close();
+		return map;
+	}
+}
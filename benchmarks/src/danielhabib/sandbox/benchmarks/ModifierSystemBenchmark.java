@@ -0,0 +1,69 @@
+package danielhabib.sandbox.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.PooledEngine;
+
+import danielhabib.sandbox.systems.ModifierSystem;
+import danielhabib.sandbox.types.StatType;
+
+/**
+ * Ticks with speed modifiers on every entity. {@code churn} is the share of
+ * entities that get a short modifier each tick, which expires a second later.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class ModifierSystemBenchmark {
+
+	@Param({ "1000", "10000", "100000", "1000000" })
+	public int entities;
+
+	@Param({ "0", "0.01" })
+	public float churn;
+
+	private PooledEngine engine;
+	private ModifierSystem modifiers;
+	private Entity[] all;
+	private Random random;
+
+	@Setup
+	public void setup() {
+		engine = new PooledEngine(entities, entities, entities, entities * 4);
+		modifiers = new ModifierSystem();
+		engine.addSystem(modifiers);
+		random = new Random(42);
+		int side = Fixtures.side(entities);
+		all = new Entity[entities];
+		for (int i = 0; i < entities; i++) {
+			all[i] = Fixtures.addMovingEntity(engine, random, side, null);
+			modifiers.add(all[i], StatType.SPEED, 2f, Float.MAX_VALUE);
+		}
+		engine.update(1 / 60f);
+	}
+
+	@Benchmark
+	public void update() {
+		for (int i = 0, n = (int) (entities * churn); i < n; i++) {
+			modifiers.add(all[random.nextInt(entities)], StatType.SPEED, 1.5f, 1f);
+		}
+		engine.update(1 / 60f);
+	}
+}
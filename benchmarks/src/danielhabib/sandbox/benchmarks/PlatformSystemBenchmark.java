@@ -0,0 +1,84 @@
+package danielhabib.sandbox.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.PooledEngine;
+
+import danielhabib.sandbox.components.BoundsComponent;
+import danielhabib.sandbox.components.GeneralCallback;
+import danielhabib.sandbox.components.PlatformComponent;
+import danielhabib.sandbox.systems.BoundsSystem;
+import danielhabib.sandbox.systems.MovementSystem;
+import danielhabib.sandbox.systems.PlatformSystem;
+import danielhabib.sandbox.types.PlatformType;
+
+/**
+ * Ticks with a few moving entities wandering over a map with one static
+ * pickup on most tiles.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class PlatformSystemBenchmark {
+
+	@Param({ "1000", "10000", "100000" })
+	public int pickups;
+
+	@Param({ "1", "16", "256" })
+	public int movers;
+
+	public int hits;
+
+	private PooledEngine engine;
+
+	@Setup
+	public void setup() {
+		engine = new PooledEngine(movers, pickups + movers, pickups + movers, pickups * 2 + movers * 4);
+		engine.addSystem(new MovementSystem());
+		engine.addSystem(new BoundsSystem());
+		engine.addSystem(new PlatformSystem());
+		GeneralCallback callback = new GeneralCallback() {
+			@Override
+			public void execute() {
+				hits++;
+			}
+		};
+
+		Random random = new Random(42);
+		int side = Fixtures.side(pickups);
+		for (int i = 0; i < pickups; i++) {
+			Entity entity = engine.createEntity();
+			BoundsComponent bounds = engine.createComponent(BoundsComponent.class);
+			bounds.bounds.set(random.nextInt(side) + 0.1f, random.nextInt(side) + 0.1f, 0.8f, 0.8f);
+			entity.add(bounds);
+			entity.add(new PlatformComponent(PlatformType.FRUIT, callback));
+			engine.addEntity(entity);
+		}
+		for (int i = 0; i < movers; i++) {
+			Fixtures.addMovingEntity(engine, random, side, null);
+		}
+	}
+
+	@Benchmark
+	public int update() {
+		engine.update(1 / 60f);
+		return hits;
+	}
+}
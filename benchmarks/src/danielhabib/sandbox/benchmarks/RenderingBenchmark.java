@@ -0,0 +1,99 @@
+package danielhabib.sandbox.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.PooledEngine;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.utils.Array;
+
+import danielhabib.sandbox.components.TransformComponent;
+import danielhabib.sandbox.systems.RenderQueue;
+import danielhabib.sandbox.systems.RenderingSystem;
+
+/**
+ * The CPU side of drawing a frame. {@code queue} only keeps the render queue
+ * sorted; {@code render} runs the whole RenderingSystem, culling included,
+ * against a batch that draws nothing. A share of the entities changes z
+ * every frame to force re-sorting.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class RenderingBenchmark {
+
+	@Param({ "1000", "10000", "100000", "1000000" })
+	public int entities;
+
+	@Param({ "0", "0.01" })
+	public float zChanges;
+
+	private PooledEngine engine;
+	private RenderingSystem renderingSystem;
+	private RenderQueue queue;
+	private Array<TransformComponent> changing;
+	private int frame;
+
+	@Setup
+	public void setup() {
+		Fixtures.init();
+		TextureRegion[] regions = new TextureRegion[4];
+		for (int i = 0; i < regions.length; i++) {
+			regions[i] = new TextureRegion(Fixtures.texture());
+		}
+
+		engine = new PooledEngine(entities, entities, entities, entities * 4);
+		renderingSystem = new RenderingSystem(Fixtures.batch(), 25, 20);
+		engine.addSystem(renderingSystem);
+		queue = new RenderQueue();
+		changing = new Array<TransformComponent>();
+
+		Random random = new Random(42);
+		int side = Fixtures.side(entities);
+		int changes = (int) (entities * zChanges);
+		for (int i = 0; i < entities; i++) {
+			Entity entity = Fixtures.addMovingEntity(engine, random, side, regions[i % regions.length]);
+			queue.add(entity);
+			if (i < changes) {
+				changing.add(entity.getComponent(TransformComponent.class));
+			}
+		}
+		queue.update();
+		renderingSystem.update(0);
+	}
+
+	@Benchmark
+	public void queue() {
+		shuffleZ();
+		queue.update();
+	}
+
+	@Benchmark
+	public void render() {
+		shuffleZ();
+		renderingSystem.update(1 / 60f);
+	}
+
+	private void shuffleZ() {
+		frame++;
+		for (int i = 0; i < changing.size; i++) {
+			changing.get(i).pos.z = (i + frame) % 4;
+		}
+	}
+}
@@ -0,0 +1,88 @@
+package danielhabib.sandbox.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.PooledEngine;
+import com.badlogic.gdx.utils.ArrayMap;
+
+import danielhabib.factory.AEntityBuilder;
+import danielhabib.factory.World;
+import danielhabib.sandbox.components.SnakeComponent;
+import danielhabib.sandbox.components.TransformComponent;
+import danielhabib.sandbox.systems.SnakeMovementSystem;
+
+/**
+ * Snakes stepping a cell every tick. The time per tick should follow the
+ * number of snakes, not their length; {@code growing} also adds a cell to
+ * each snake every tick and takes one off every other tick.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SnakeMovementBenchmark {
+
+	@Param({ "1", "100", "10000" })
+	public int snakes;
+
+	@Param({ "4", "1000", "100000" })
+	public int length;
+
+	@Param({ "false", "true" })
+	public boolean growing;
+
+	private PooledEngine engine;
+	private SnakeComponent[] all;
+	private long tick;
+
+	@Setup
+	public void setup() {
+		engine = new PooledEngine(snakes, snakes, snakes, snakes * 2);
+		engine.addSystem(new SnakeMovementSystem(new World(new ArrayMap<String, AEntityBuilder>(), "none")));
+		all = new SnakeComponent[snakes];
+		for (int i = 0; i < snakes; i++) {
+			Entity entity = engine.createEntity();
+			entity.add(engine.createComponent(TransformComponent.class));
+			SnakeComponent snake = engine.createComponent(SnakeComponent.class);
+			snake.place(0, i, length);
+			// grown to its length, then a step per tick
+			for (int j = 1; j < length; j++) {
+				snake.step(j, i);
+			}
+			snake.speed = 60;
+			entity.add(snake);
+			engine.addEntity(entity);
+			all[i] = snake;
+		}
+	}
+
+	@Benchmark
+	public void update() {
+		if (growing) {
+			boolean shrink = (tick & 1) == 0;
+			for (SnakeComponent snake : all) {
+				snake.growth++;
+				if (shrink) {
+					snake.shrink(1);
+				}
+			}
+		}
+		tick++;
+		engine.update(1 / 60f);
+	}
+}
@@ -0,0 +1,85 @@
+package danielhabib.sandbox.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.badlogic.ashley.core.PooledEngine;
+
+import danielhabib.factory.Parameters;
+import danielhabib.sandbox.systems.MovementSystem;
+import danielhabib.sandbox.systems.SnapshotSystem;
+
+/**
+ * Capturing a tick of moving entities, each moving every tick, so every
+ * snapshot has all their positions changed. {@code move} is the movement
+ * alone, {@code capture} the same plus the snapshot, {@code restore} puts
+ * back the last tick captured.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SnapshotBenchmark {
+
+	@Param({ "1000", "10000", "100000" })
+	public int entities;
+
+	private PooledEngine engine;
+	private MovementSystem movement;
+	private SnapshotSystem snapshots;
+
+	@Setup(Level.Trial)
+	public void setup() {
+		engine = new PooledEngine(entities, entities, entities, entities * 3);
+		movement = new MovementSystem();
+		snapshots = new SnapshotSystem(Parameters.SNAPSHOT_SECONDS, 256 << 20);
+		engine.addSystem(movement);
+		engine.addSystem(snapshots);
+		Random random = new Random(42);
+		int side = Fixtures.side(entities);
+		for (int i = 0; i < entities; i++) {
+			Fixtures.addMovingEntity(engine, random, side, null);
+		}
+		engine.update(1 / Parameters.TICK_RATE);
+	}
+
+	@Benchmark
+	public void move() {
+		movement.update(1 / Parameters.TICK_RATE);
+	}
+
+	@Benchmark
+	public void capture() {
+		movement.update(1 / Parameters.TICK_RATE);
+		snapshots.update(1 / Parameters.TICK_RATE);
+	}
+
+	@Benchmark
+	public boolean restore() {
+		// the tick it is at already, decoded from the key frame before it
+		return snapshots.restore(snapshots.getTick());
+	}
+
+	@TearDown(Level.Trial)
+	public void report() {
+		System.out.println();
+		System.out.println("ticks kept " + (snapshots.getTick() - snapshots.getOldestTick() + 1) + ", bytes "
+				+ snapshots.getBytes());
+	}
+}
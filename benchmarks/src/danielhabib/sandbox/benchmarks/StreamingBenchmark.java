@@ -0,0 +1,88 @@
+package danielhabib.sandbox.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.ArrayMap;
+
+import danielhabib.factory.AEntityBuilder;
+import danielhabib.factory.WorldStreamer;
+import danielhabib.sandbox.Simulation;
+import danielhabib.sandbox.headless.LevelCompiler;
+
+/**
+ * A focus sweeping a generated, fully occupied level row by row, one tile
+ * per update, with every cell built as a moving entity. Per-update cost and
+ * the entities kept should follow {@code radius}, not {@code cells}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class StreamingBenchmark {
+
+	@Param({ "10000", "1000000" })
+	public int cells;
+
+	@Param({ "1", "2" })
+	public int radius;
+
+	private FileHandle map;
+	private Simulation simulation;
+	private WorldStreamer streamer;
+	private int side;
+	private int step;
+
+	@Setup(Level.Trial)
+	public void setup() throws IOException {
+		Fixtures.init();
+		map = MapGenerator.generate(Gdx.files.local("."), cells);
+		LevelCompiler.compile(map.path());
+		side = Fixtures.side(cells);
+
+		simulation = new Simulation(map.path(), false, false, true);
+		ArrayMap<String, AEntityBuilder> all = simulation.world.builders;
+		for (int i = 0; i < all.size; i++) {
+			all.setValue(i, new Fixtures.MovingEntityBuilder(simulation.engine));
+		}
+		simulation.create();
+		streamer = new WorldStreamer(simulation.world, simulation.engine, radius);
+	}
+
+	@Benchmark
+	public int update() {
+		int row = step / side;
+		int x = row % 2 == 0 ? step % side : side - 1 - step % side;
+		streamer.addFocus(x + 0.5f, row % side + 0.5f);
+		streamer.update();
+		step++;
+		return streamer.getActiveCount();
+	}
+
+	@TearDown(Level.Trial)
+	public void delete() {
+		System.out.println();
+		System.out.println("active entities " + streamer.getActiveCount() + ", chunks " + streamer.getChunkCount());
+		streamer.dispose();
+		simulation.dispose();
+		map.parent().deleteDirectory();
+	}
+}
@@ -0,0 +1,122 @@
+package danielhabib.sandbox.benchmarks;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.EntitySystem;
+import com.badlogic.ashley.core.PooledEngine;
+
+import danielhabib.sandbox.components.RotationComponent;
+import danielhabib.sandbox.systems.BoundsSystem;
+import danielhabib.sandbox.systems.DensePhysicsSystem;
+import danielhabib.sandbox.systems.ModifierSystem;
+import danielhabib.sandbox.systems.MovementSystem;
+import danielhabib.sandbox.systems.ParallelIteratingSystem;
+import danielhabib.sandbox.systems.PlatformSystem;
+import danielhabib.sandbox.systems.RotationSystem;
+import danielhabib.sandbox.systems.SystemScheduler;
+import danielhabib.sandbox.systems.TimeoutSystem;
+import danielhabib.sandbox.systems.TransformHistorySystem;
+
+/**
+ * One engine tick with a single system over entities that all match its
+ * family. {@code dense} moves, rotates and bounds them all at once;
+ * {@code all} runs every simulation system one after the other and
+ * {@code scheduled} the same ones through a {@link SystemScheduler}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class SystemsBenchmark {
+
+	@Param({ "1000", "10000", "100000", "1000000" })
+	public int entities;
+
+	@Param({ "movement", "bounds", "rotation", "dense", "all", "scheduled" })
+	public String system;
+
+	/** Whether {@link ParallelIteratingSystem}s may go parallel. */
+	@Param({ "true", "false" })
+	public boolean parallel;
+
+	private PooledEngine engine;
+	private SystemScheduler scheduler;
+
+	@Setup
+	public void setup() {
+		engine = new PooledEngine(entities, entities, entities, entities * 4);
+		if ("all".equals(system)) {
+			for (EntitySystem each : simulationSystems()) {
+				engine.addSystem(each);
+			}
+		} else if ("scheduled".equals(system)) {
+			scheduler = new SystemScheduler();
+			for (EntitySystem each : simulationSystems()) {
+				scheduler.add(each);
+			}
+			engine.addSystem(scheduler);
+		} else {
+			engine.addSystem(create(system));
+		}
+		if (!parallel) {
+			for (EntitySystem each : engine.getSystems()) {
+				if (each instanceof ParallelIteratingSystem) {
+					((ParallelIteratingSystem<?>) each).setThreshold(Integer.MAX_VALUE);
+				}
+			}
+		}
+		Random random = new Random(42);
+		int side = Fixtures.side(entities);
+		for (int i = 0; i < entities; i++) {
+			Entity entity = Fixtures.addMovingEntity(engine, random, side, null);
+			entity.add(new RotationComponent(random.nextFloat()));
+		}
+	}
+
+	@Benchmark
+	public void update() {
+		engine.update(1 / 60f);
+	}
+
+	@TearDown
+	public void dispose() {
+		if (scheduler != null) {
+			scheduler.dispose();
+		}
+	}
+
+	private static EntitySystem create(String system) {
+		if ("movement".equals(system)) {
+			return new MovementSystem();
+		}
+		if ("bounds".equals(system)) {
+			return new BoundsSystem();
+		}
+		if ("dense".equals(system)) {
+			return new DensePhysicsSystem();
+		}
+		return new RotationSystem();
+	}
+
+	private static EntitySystem[] simulationSystems() {
+		return new EntitySystem[] { new TransformHistorySystem(), new PlatformSystem(), new MovementSystem(),
+				new BoundsSystem(), new RotationSystem(), new TimeoutSystem(), new ModifierSystem() };
+	}
+}
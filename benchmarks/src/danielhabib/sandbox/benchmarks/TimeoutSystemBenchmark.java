@@ -0,0 +1,61 @@
+package danielhabib.sandbox.benchmarks;
+
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.PooledEngine;
+
+import danielhabib.sandbox.components.GeneralCallback;
+import danielhabib.sandbox.components.TimeoutComponent;
+import danielhabib.sandbox.systems.TimeoutSystem;
+
+/**
+ * Ticks with pending timeouts that never fire during the run, the steady
+ * state of a level full of timed pickups.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 5)
+@Fork(1)
+public class TimeoutSystemBenchmark {
+
+	@Param({ "1000", "10000", "100000", "1000000" })
+	public int entities;
+
+	private PooledEngine engine;
+
+	@Setup
+	public void setup() {
+		engine = new PooledEngine(entities, entities, entities, entities);
+		engine.addSystem(new TimeoutSystem());
+		GeneralCallback callback = new GeneralCallback() {
+			@Override
+			public void execute() {
+			}
+		};
+		for (int i = 0; i < entities; i++) {
+			Entity entity = engine.createEntity();
+			entity.add(new TimeoutComponent(Float.MAX_VALUE, callback));
+			engine.addEntity(entity);
+		}
+	}
+
+	@Benchmark
+	public void update() {
+		engine.update(1 / 60f);
+	}
+}
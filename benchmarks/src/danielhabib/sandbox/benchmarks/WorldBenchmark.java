@@ -0,0 +1,98 @@
+package danielhabib.sandbox.benchmarks;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.ArrayMap;
+
+import danielhabib.factory.AEntityBuilder;
+import danielhabib.factory.LevelFile;
+import danielhabib.sandbox.Simulation;
+import danielhabib.sandbox.headless.LevelCompiler;
+
+/**
+ * Loading a generated level: reading the map, tileset textures (against a GL
+ * that does nothing) and building an entity per cell. {@code nop} keeps the
+ * level's builders, {@code entities} gives every cell a transform, movement,
+ * texture and bounds. {@code tmx} parses the map, {@code binary} reads it
+ * compiled to a {@link LevelFile}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(1)
+public class WorldBenchmark {
+
+	@Param({ "1000", "10000", "100000", "1000000" })
+	public int entities;
+
+	@Param({ "nop", "entities" })
+	public String builders;
+
+	@Param({ "tmx", "binary" })
+	public String format;
+
+	private FileHandle map;
+	private Simulation simulation;
+
+	@Setup(Level.Trial)
+	public void generate() throws IOException {
+		Fixtures.init();
+		map = MapGenerator.generate(Gdx.files.local("."), entities);
+		if ("binary".equals(format)) {
+			LevelCompiler.compile(map.path());
+		}
+	}
+
+	@Setup(Level.Invocation)
+	public void setup() {
+		simulation = new Simulation(map.path());
+		if ("entities".equals(builders)) {
+			ArrayMap<String, AEntityBuilder> all = simulation.world.builders;
+			for (int i = 0; i < all.size; i++) {
+				all.setValue(i, new Fixtures.MovingEntityBuilder(simulation.engine));
+			}
+		}
+	}
+
+	@Benchmark
+	public Simulation create() {
+		simulation.create();
+		return simulation;
+	}
+
+	/** Reading the map alone, without building entities. */
+	@Benchmark
+	public Simulation prepare() {
+		simulation.world.prepare();
+		return simulation;
+	}
+
+	@TearDown(Level.Invocation)
+	public void dispose() {
+		simulation.dispose();
+	}
+
+	@TearDown(Level.Trial)
+	public void delete() {
+		map.parent().deleteDirectory();
+	}
+}
@@ -3,18 +3,18 @@ package danielhabib.factory;
 import com.badlogic.ashley.core.Entity;
 import com.badlogic.ashley.core.PooledEngine;
 import com.badlogic.gdx.graphics.Texture;
-import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.maps.tiled.TiledMapTile;
 
 import danielhabib.sandbox.components.BoundsComponent;
 import danielhabib.sandbox.components.MovementComponent;
 import danielhabib.sandbox.components.TextureComponent;
 import danielhabib.sandbox.components.TransformComponent;
-import danielhabib.sandbox.systems.RenderingSystem;
 
 public abstract class AEntityBuilder {
 	protected PooledEngine engine;
+	/** Of the tile being built: the {@link Sprites} atlas page when its image is packed. */
 	protected Texture texture;
+	protected TileBlueprint blueprint;
 
 	public AEntityBuilder(PooledEngine engine) {
 		this.engine = engine;
@@ -23,8 +23,14 @@ public abstract class AEntityBuilder {
 	protected abstract Entity buildInternal(int x, int y, TiledMapTile tile);
 
 	public Entity build(int x, int y, TiledMapTile tile) {
-		texture = tile.getTextureRegion().getTexture();
-		return buildInternal(x, y, tile);
+		return build(x, y, new TileBlueprint(tile));
+	}
+
+	/** Builds from a blueprint shared by every cell of the same tile. */
+	public Entity build(int x, int y, TileBlueprint blueprint) {
+		this.blueprint = blueprint;
+		texture = blueprint.region.getTexture();
+		return buildInternal(x, y, blueprint.tile);
 	}
 
 	public Entity createEntity(float xPos, float yPos, float xVel, float yVel) {
@@ -34,14 +40,14 @@ public abstract class AEntityBuilder {
 		TextureComponent textureComponent = engine.createComponent(TextureComponent.class);
 		BoundsComponent bounds = engine.createComponent(BoundsComponent.class);
 
-		textureComponent.region = new TextureRegion(texture);
+		textureComponent.region = blueprint.region;
 		transform.pos.x = xPos;
 		transform.pos.y = yPos;
 		movement.velocity.x = xVel;
 		movement.velocity.y = yVel;
 
-		bounds.bounds.width = textureComponent.region.getRegionWidth() * RenderingSystem.PIXELS_TO_METER;
-		bounds.bounds.height = textureComponent.region.getRegionHeight() * RenderingSystem.PIXELS_TO_METER;
+		bounds.bounds.width = blueprint.width;
+		bounds.bounds.height = blueprint.height;
 		bounds.bounds.x = transform.pos.x;
 		bounds.bounds.y = transform.pos.y;
 
@@ -0,0 +1,301 @@
+package danielhabib.factory;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.assets.loaders.SoundLoader;
+import com.badlogic.gdx.assets.loaders.TextureLoader;
+import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
+import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap.Format;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.TextureData;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.graphics.g2d.BitmapFont.BitmapFontData;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas.TextureAtlasData;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Decodes textures and sounds on a pool of threads, all at once, ahead of an
+ * {@link AssetManager} that would decode them one after the other on its
+ * single loading thread. The loaders set by {@link #register} take the
+ * decoded data when the manager gets to the file, so only the GL upload is
+ * left for the render thread; anything not prefetched, or prefetched with
+ * other settings, loads as usual. The pages of atlases and bitmap fonts are
+ * prefetched with them.
+ */
+public class AssetPrefetcher implements Disposable {
+	private final ExecutorService pool;
+	private final int threads;
+	private final ObjectMap<String, Future<?>> pending = new ObjectMap<String, Future<?>>();
+	/** Reading atlases and fonts, which queue their pages. */
+	private final Array<Future<?>> readers = new Array<Future<?>>();
+	private final FileHandleResolver resolver = new InternalFileHandleResolver();
+	private final long start = System.nanoTime();
+	private long decodeNanos;
+	private long lastEnd;
+	private int files;
+
+	private static class PrefetchedTexture {
+		final TextureData data;
+		final Format format;
+		final boolean genMipMaps;
+
+		PrefetchedTexture(TextureData data, Format format, boolean genMipMaps) {
+			this.data = data;
+			this.format = format;
+			this.genMipMaps = genMipMaps;
+		}
+	}
+
+	public AssetPrefetcher() {
+		this(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+	}
+
+	public AssetPrefetcher(int threads) {
+		this.threads = threads;
+		pool = Executors.newFixedThreadPool(threads, new ThreadFactory() {
+			private int count;
+
+			@Override
+			public Thread newThread(Runnable runnable) {
+				Thread thread = new Thread(runnable, "prefetch-" + count++);
+				thread.setDaemon(true);
+				return thread;
+			}
+		});
+	}
+
+	/** Sets texture and sound loaders on the manager that take what was prefetched. */
+	public void register(AssetManager manager) {
+		FileHandleResolver resolver = manager.getFileHandleResolver();
+		manager.setLoader(Texture.class, new PrefetchedTextureLoader(resolver));
+		manager.setLoader(Sound.class, new PrefetchedSoundLoader(resolver));
+	}
+
+	/** Starts decoding the file, if it is a texture, sound, atlas or bitmap font. */
+	public void prefetch(String fileName, Class<?> type) {
+		if (type == Texture.class) {
+			texture(fileName, null, false);
+		} else if (type == Sound.class) {
+			sound(fileName);
+		} else if (type == TextureAtlas.class) {
+			atlas(fileName);
+		} else if (type == BitmapFont.class) {
+			font(fileName);
+		}
+	}
+
+	/** With the format and mipmaps the texture will be loaded with. */
+	public synchronized void texture(final String fileName, final Format format, final boolean genMipMaps) {
+		if (pending.containsKey(fileName)) {
+			return;
+		}
+		files++;
+		pending.put(fileName, submit(new Job<PrefetchedTexture>() {
+			@Override
+			PrefetchedTexture run() {
+				TextureData data = TextureData.Factory.loadFromFile(resolver.resolve(fileName), format, genMipMaps);
+				data.prepare();
+				return new PrefetchedTexture(data, format, genMipMaps);
+			}
+		}));
+	}
+
+	public synchronized void sound(final String fileName) {
+		if (pending.containsKey(fileName)) {
+			return;
+		}
+		files++;
+		pending.put(fileName, submit(new Job<Sound>() {
+			@Override
+			Sound run() {
+				return Gdx.audio.newSound(resolver.resolve(fileName));
+			}
+		}));
+	}
+
+	/** Reads the atlas for its pages, which are then prefetched as they will be loaded. */
+	public synchronized void atlas(final String fileName) {
+		readers.add(submit(new Job<Void>() {
+			@Override
+			Void run() {
+				FileHandle file = resolver.resolve(fileName);
+				TextureAtlasData data = new TextureAtlasData(file, file.parent(), false);
+				for (TextureAtlasData.Page page : data.getPages()) {
+					texture(path(page.textureFile), page.format, page.useMipMaps);
+				}
+				return null;
+			}
+		}));
+	}
+
+	/** Reads the font for its pages, which are then prefetched. */
+	public synchronized void font(final String fileName) {
+		readers.add(submit(new Job<Void>() {
+			@Override
+			Void run() {
+				BitmapFontData data = new BitmapFontData(resolver.resolve(fileName), false);
+				for (String image : data.getImagePaths()) {
+					texture(path(resolver.resolve(image)), null, false);
+				}
+				return null;
+			}
+		}));
+	}
+
+	/**
+	 * Appends how long decoding took: from creating this prefetcher to the
+	 * end of the last file, and the time summed over the threads.
+	 */
+	public synchronized void report(StringBuilder out) {
+		out.append("prefetched ").append(files).append(" files on ").append(threads).append(" threads in ")
+				.append((lastEnd - start) / 1000000).append(" ms, ").append(decodeNanos / 1000000)
+				.append(" ms of decoding");
+	}
+
+	/** Stops the threads, and releases the sounds and pixmaps nobody took. */
+	@Override
+	public void dispose() {
+		pool.shutdown();
+		Future<?> future;
+		// pages they queue after this are turned down
+		while ((future = nextReader()) != null) {
+			get(future);
+		}
+		Array<Future<?>> left;
+		synchronized (this) {
+			left = pending.values().toArray();
+			pending.clear();
+		}
+		for (Future<?> untaken : left) {
+			Object data = get(untaken);
+			if (data instanceof Sound) {
+				((Sound) data).dispose();
+			} else if (data instanceof PrefetchedTexture) {
+				TextureData texture = ((PrefetchedTexture) data).data;
+				if (texture.getType() == TextureData.TextureDataType.Pixmap && texture.disposePixmap()) {
+					texture.consumePixmap().dispose();
+				}
+			}
+		}
+	}
+
+	/** The decoded data, waiting for it if need be; null if it was not prefetched or failed. */
+	private Object take(String fileName) {
+		Future<?> future;
+		// so that pages are found, however fast the manager gets to them
+		while ((future = nextReader()) != null) {
+			get(future);
+		}
+		synchronized (this) {
+			future = pending.remove(fileName);
+		}
+		return future == null ? null : get(future);
+	}
+
+	/** What the job returned, null if it failed or the wait was interrupted. */
+	private static Object get(Future<?> future) {
+		try {
+			return future.get();
+		} catch (InterruptedException ex) {
+			Thread.currentThread().interrupt();
+			return null;
+		} catch (ExecutionException ex) {
+			// loaded again the usual way, which reports the error
+			return null;
+		}
+	}
+
+	private synchronized Future<?> nextReader() {
+		return readers.size == 0 ? null : readers.pop();
+	}
+
+	private <T> Future<T> submit(Job<T> job) {
+		return pool.submit(job);
+	}
+
+	private synchronized void timed(long nanos) {
+		decodeNanos += nanos;
+		lastEnd = Math.max(lastEnd, System.nanoTime());
+	}
+
+	/** As the manager names dependencies. */
+	private static String path(FileHandle file) {
+		return file.path().replaceAll("\\\\", "/");
+	}
+
+	private abstract class Job<T> implements Callable<T> {
+		abstract T run();
+
+		@Override
+		public T call() {
+			long begin = System.nanoTime();
+			T result = run();
+			timed(System.nanoTime() - begin);
+			return result;
+		}
+	}
+
+	private class PrefetchedTextureLoader extends TextureLoader {
+		PrefetchedTextureLoader(FileHandleResolver resolver) {
+			super(resolver);
+		}
+
+		@Override
+		public void loadAsync(AssetManager manager, String fileName, FileHandle file, TextureParameter parameter) {
+			PrefetchedTexture prefetched = (PrefetchedTexture) take(fileName);
+			Format format = parameter == null ? null : parameter.format;
+			boolean genMipMaps = parameter != null && parameter.genMipMaps;
+			if (prefetched != null && prefetched.format == format && prefetched.genMipMaps == genMipMaps
+					&& (parameter == null || parameter.textureData == null)) {
+				TextureParameter withData = new TextureParameter();
+				if (parameter != null) {
+					withData.texture = parameter.texture;
+				}
+				withData.format = format;
+				withData.genMipMaps = genMipMaps;
+				withData.textureData = prefetched.data;
+				parameter = withData;
+			}
+			super.loadAsync(manager, fileName, file, parameter);
+		}
+	}
+
+	private class PrefetchedSoundLoader extends SoundLoader {
+		private Sound sound;
+
+		PrefetchedSoundLoader(FileHandleResolver resolver) {
+			super(resolver);
+		}
+
+		@Override
+		public void loadAsync(AssetManager manager, String fileName, FileHandle file, SoundParameter parameter) {
+			sound = (Sound) take(fileName);
+			if (sound == null) {
+				super.loadAsync(manager, fileName, file, parameter);
+			}
+		}
+
+		@Override
+		public Sound loadSync(AssetManager manager, String fileName, FileHandle file, SoundParameter parameter) {
+			if (sound == null) {
+				return super.loadSync(manager, fileName, file, parameter);
+			}
+			Sound loaded = sound;
+			sound = null;
+			return loaded;
+		}
+	}
+}
@@ -0,0 +1,60 @@
+package danielhabib.factory;
+
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.assets.loaders.SkinLoader;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.BitmapFont;
+import com.badlogic.gdx.scenes.scene2d.ui.Skin;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Loads a skin whose fonts are loaded by the manager, as dependencies,
+ * instead of by the skin's JSON: their pages decode off the render thread
+ * like any other texture and nothing is loaded twice. The JSON then leaves
+ * the fonts out and refers to them by the names given here.
+ */
+public class FontSkinLoader extends SkinLoader {
+
+	public static class FontSkinParameter extends SkinParameter {
+		/** Skin name to bitmap font file. */
+		public final ObjectMap<String, String> fonts = new ObjectMap<String, String>();
+
+		public FontSkinParameter(String textureAtlasPath) {
+			super(textureAtlasPath, new ObjectMap<String, Object>());
+		}
+
+		public FontSkinParameter font(String name, String fileName) {
+			fonts.put(name, fileName);
+			return this;
+		}
+	}
+
+	public FontSkinLoader(FileHandleResolver resolver) {
+		super(resolver);
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Override
+	public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, SkinParameter parameter) {
+		Array<AssetDescriptor> dependencies = super.getDependencies(fileName, file, parameter);
+		if (parameter instanceof FontSkinParameter) {
+			for (String font : ((FontSkinParameter) parameter).fonts.values()) {
+				dependencies.add(new AssetDescriptor<BitmapFont>(font, BitmapFont.class));
+			}
+		}
+		return dependencies;
+	}
+
+	@Override
+	public Skin loadSync(AssetManager manager, String fileName, FileHandle file, SkinParameter parameter) {
+		if (parameter instanceof FontSkinParameter) {
+			for (ObjectMap.Entry<String, String> font : ((FontSkinParameter) parameter).fonts) {
+				parameter.resources.put(font.key, manager.get(font.value, BitmapFont.class));
+			}
+		}
+		return super.loadSync(manager, fileName, file, parameter);
+	}
+}
@@ -0,0 +1,276 @@
+package danielhabib.factory;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.IntBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.util.Iterator;
+
+import com.badlogic.gdx.Files.FileType;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.MapProperties;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
+import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
+import com.badlogic.gdx.maps.tiled.tiles.StaticTiledMapTile;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.StreamUtils;
+
+/**
+ * A TMX level compiled ahead of time, read through a memory-mapped file: no
+ * XML to parse and no cell objects, only a table of the tiles in use and the
+ * tile id of each cell. Layout, big endian:
+ *
+ * <pre>
+ * int magic, int version
+ * int width, int height, int tileWidth, int tileHeight
+ * int tiles, then per tile:
+ *     int id, string image, int x, int y, int width, int height
+ *     int properties, then per property: string name, string value
+ * int[width * height] tile id of each cell, column by column, 0 when empty
+ * </pre>
+ *
+ * Strings are an int length followed by UTF-8 bytes; images are relative to
+ * the level file.
+ */
+public class LevelFile implements Disposable {
+	public static final String EXTENSION = ".lvl";
+	private static final int MAGIC = 0x534e4b4c;
+	private static final int VERSION = 1;
+	private static final Charset UTF8 = Charset.forName("UTF-8");
+
+	public final int width;
+	public final int height;
+	public final int tileWidth;
+	public final int tileHeight;
+	/** Tiles of the level, without regions until their textures are set. */
+	public final TiledMapTileSet tiles = new TiledMapTileSet();
+	/** Index in {@link #regions} of the tiles of each image. */
+	private final ObjectMap<String, IntArray> images = new ObjectMap<String, IntArray>();
+	private final Array<StaticTiledMapTile> order = new Array<StaticTiledMapTile>();
+	/** x, y, width, height of each tile, in pixels of its image. */
+	private final int[] regions;
+	private final IntBuffer grid;
+	private final Array<Disposable> owned = new Array<Disposable>();
+
+	private LevelFile(FileHandle file, ByteBuffer buffer) {
+		if (buffer.getInt() != MAGIC) {
+			throw new GdxRuntimeException(file + " is not a level file");
+		}
+		if (buffer.getInt() != VERSION) {
+			throw new GdxRuntimeException(file + " was compiled for another version, compile it again");
+		}
+		width = buffer.getInt();
+		height = buffer.getInt();
+		tileWidth = buffer.getInt();
+		tileHeight = buffer.getInt();
+
+		FileHandle dir = file.parent();
+		int count = buffer.getInt();
+		regions = new int[count * 4];
+		for (int i = 0; i < count; i++) {
+			StaticTiledMapTile tile = new StaticTiledMapTile(new TextureRegion());
+			tile.setId(buffer.getInt());
+			String image = dir.child(readString(buffer)).path();
+			for (int j = 0; j < 4; j++) {
+				regions[i * 4 + j] = buffer.getInt();
+			}
+			MapProperties properties = tile.getProperties();
+			for (int j = buffer.getInt(); j > 0; j--) {
+				properties.put(readString(buffer), readString(buffer));
+			}
+			tiles.putTile(tile.getId(), tile);
+			order.add(tile);
+			if (!images.containsKey(image)) {
+				images.put(image, new IntArray());
+			}
+			images.get(image).add(i);
+		}
+		grid = buffer.slice().asIntBuffer();
+		if (grid.remaining() < width * height) {
+			throw new GdxRuntimeException(file + " is truncated");
+		}
+	}
+
+	/** Maps the file when it is on disk, reads it whole otherwise (Android assets). */
+	public static LevelFile read(FileHandle file) {
+		ByteBuffer buffer;
+		File path = file.file();
+		if (file.type() != FileType.Classpath && path.isFile()) {
+			RandomAccessFile input = null;
+			try {
+				input = new RandomAccessFile(path, "r");
+				buffer = input.getChannel().map(FileChannel.MapMode.READ_ONLY, 0, input.length());
+			} catch (IOException ex) {
+				throw new GdxRuntimeException("Error reading " + file, ex);
+			} finally {
+				// the mapping outlives the channel
+				StreamUtils.closeQuietly(input);
+			}
+		} else {
+			buffer = ByteBuffer.wrap(file.readBytes());
+		}
+		return new LevelFile(file, buffer);
+	}
+
+	/**
+	 * The compiled file of a map, or null when there is none or the map was
+	 * changed since, so levels being edited load from TMX.
+	 */
+	public static FileHandle find(String mapName) {
+		FileHandle compiled = Gdx.files.internal(compiledName(mapName));
+		if (!compiled.exists()) {
+			return null;
+		}
+		FileHandle map = Gdx.files.internal(mapName);
+		if (map.exists() && map.lastModified() > compiled.lastModified()) {
+			return null;
+		}
+		return compiled;
+	}
+
+	public static String compiledName(String mapName) {
+		int dot = mapName.lastIndexOf('.');
+		return (dot > mapName.lastIndexOf('/') ? mapName.substring(0, dot) : mapName) + EXTENSION;
+	}
+
+	/** Id of the tile at (x, y), 0 when empty. */
+	public int getTile(int x, int y) {
+		return grid.get(x * height + y);
+	}
+
+	/**
+	 * Paths of the tile images, to be loaded and passed to
+	 * {@link #setTexture}, or to {@link #setRegion} when {@link Sprites packed}.
+	 */
+	public Array<String> getImages() {
+		return images.keys().toArray();
+	}
+
+	public void setTexture(String image, Texture texture) {
+		setRegion(image, new TextureRegion(texture));
+	}
+
+	/** Sets the tiles of the image from a region holding the whole image, such as an atlas region. */
+	public void setRegion(String image, TextureRegion source) {
+		IntArray indices = images.get(image);
+		for (int i = 0; i < indices.size; i++) {
+			int index = indices.get(i);
+			TextureRegion region = order.get(index).getTextureRegion();
+			region.setRegion(source, regions[index * 4], regions[index * 4 + 1], regions[index * 4 + 2],
+					regions[index * 4 + 3]);
+		}
+	}
+
+	/**
+	 * Loads the sprite atlas, when some image is packed, and the images that
+	 * are not; they are disposed with the level.
+	 */
+	public void loadTextures() {
+		TextureAtlas atlas = null;
+		for (String image : getImages()) {
+			if (Sprites.isPacked(image)) {
+				if (atlas == null) {
+					atlas = new TextureAtlas(Gdx.files.internal(Sprites.ATLAS));
+					owned.add(atlas);
+				}
+				setRegion(image, Sprites.find(atlas, image));
+			} else {
+				Texture texture = new Texture(Gdx.files.internal(image));
+				owned.add(texture);
+				setTexture(image, texture);
+			}
+		}
+	}
+
+	@Override
+	public void dispose() {
+		for (Disposable resource : owned) {
+			resource.dispose();
+		}
+		owned.clear();
+	}
+
+	/** Compiles the first layer of a map loaded from TMX. */
+	public static void write(TiledMap map, FileHandle target) {
+		TiledMapTileLayer layer = (TiledMapTileLayer) map.getLayers().get(0);
+		DataOutputStream out = new DataOutputStream(target.write(false, 8192));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeInt(layer.getWidth());
+			out.writeInt(layer.getHeight());
+			out.writeInt((int) layer.getTileWidth());
+			out.writeInt((int) layer.getTileHeight());
+
+			int count = 0;
+			for (TiledMapTileSet tileset : map.getTileSets()) {
+				count += tileset.size();
+			}
+			out.writeInt(count);
+			for (TiledMapTileSet tileset : map.getTileSets()) {
+				Object image = tileset.getProperties().get("imagesource");
+				if (image == null) {
+					throw new GdxRuntimeException("Tileset " + tileset.getName() + " has no single image");
+				}
+				for (TiledMapTile tile : tileset) {
+					TextureRegion region = tile.getTextureRegion();
+					out.writeInt(tile.getId());
+					writeString(out, image.toString());
+					out.writeInt(region.getRegionX());
+					out.writeInt(region.getRegionY());
+					out.writeInt(region.getRegionWidth());
+					out.writeInt(region.getRegionHeight());
+					MapProperties properties = tile.getProperties();
+					int size = 0;
+					for (Iterator<String> keys = properties.getKeys(); keys.hasNext(); keys.next()) {
+						size++;
+					}
+					out.writeInt(size);
+					for (Iterator<String> keys = properties.getKeys(); keys.hasNext();) {
+						String key = keys.next();
+						writeString(out, key);
+						writeString(out, String.valueOf(properties.get(key)));
+					}
+				}
+			}
+
+			for (int x = 0; x < layer.getWidth(); x++) {
+				for (int y = 0; y < layer.getHeight(); y++) {
+					Cell cell = layer.getCell(x, y);
+					out.writeInt(cell == null ? 0 : cell.getTile().getId());
+				}
+			}
+		} catch (IOException ex) {
+			throw new GdxRuntimeException("Error writing " + target, ex);
+		} finally {
+			StreamUtils.closeQuietly(out);
+		}
+	}
+
+	private static String readString(ByteBuffer buffer) {
+		byte[] bytes = new byte[buffer.getInt()];
+		buffer.get(bytes);
+		return new String(bytes, UTF8);
+	}
+
+	private static void writeString(DataOutputStream out, String value) throws IOException {
+		byte[] bytes = value.getBytes(UTF8);
+		out.writeInt(bytes.length);
+		out.write(bytes);
+	}
+}
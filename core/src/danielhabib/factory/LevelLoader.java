@@ -0,0 +1,111 @@
+package danielhabib.factory;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.assets.AssetDescriptor;
+import com.badlogic.gdx.assets.AssetLoaderParameters;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.assets.loaders.AsynchronousAssetLoader;
+import com.badlogic.gdx.assets.loaders.FileHandleResolver;
+import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Texture;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TmxMapLoader;
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Loads a {@link World} through an {@link AssetManager}: the compiled
+ * {@link LevelFile} is read while listing dependencies, or the TMX map is
+ * one when there is no up to date compiled file. Either way textures are
+ * uploaded on the render thread and {@link World#prepare} runs off it.
+ * Tiles of images packed into the {@link Sprites} atlas draw from it.
+ * Entities are left for the caller to {@link World#build} a few at a time.
+ *
+ * The asset is named after the map plus {@link #EXTENSION}, since the map
+ * itself is already an asset under its own name.
+ */
+public class LevelLoader extends AsynchronousAssetLoader<World, LevelLoader.LevelParameter> {
+	public static final String EXTENSION = ".level";
+
+	public static class LevelParameter extends AssetLoaderParameters<World> {
+		public final World world;
+		/** Read while listing dependencies, null to load the TMX map. */
+		LevelFile level;
+
+		public LevelParameter(World world) {
+			this.world = world;
+		}
+	}
+
+	public LevelLoader(FileHandleResolver resolver) {
+		super(resolver);
+	}
+
+	/** Sets this loader, and the map loader it depends on, on the manager. */
+	public static void register(AssetManager manager) {
+		FileHandleResolver resolver = new InternalFileHandleResolver();
+		manager.setLoader(TiledMap.class, new TmxMapLoader(resolver));
+		manager.setLoader(World.class, new LevelLoader(resolver));
+	}
+
+	public static String assetName(World world) {
+		return world.getMapName() + EXTENSION;
+	}
+
+	@SuppressWarnings("rawtypes")
+	@Override
+	public Array<AssetDescriptor> getDependencies(String fileName, FileHandle file, LevelParameter parameter) {
+		Array<AssetDescriptor> dependencies = new Array<AssetDescriptor>();
+		FileHandle compiled = LevelFile.find(parameter.world.getMapName());
+		if (compiled != null) {
+			LevelFile level = LevelFile.read(compiled);
+			parameter.level = level;
+			boolean packed = false;
+			for (String image : level.getImages()) {
+				if (Sprites.isPacked(image)) {
+					packed = true;
+				} else {
+					dependencies.add(new AssetDescriptor<Texture>(image, Texture.class));
+				}
+			}
+			if (packed) {
+				dependencies.add(new AssetDescriptor<TextureAtlas>(Sprites.ATLAS, TextureAtlas.class));
+			}
+		} else {
+			parameter.level = null;
+			dependencies.add(new AssetDescriptor<TiledMap>(parameter.world.getMapName(), TiledMap.class));
+			if (Gdx.files.internal(Sprites.ATLAS).exists()) {
+				dependencies.add(new AssetDescriptor<TextureAtlas>(Sprites.ATLAS, TextureAtlas.class));
+			}
+		}
+		return dependencies;
+	}
+
+	@Override
+	public void loadAsync(AssetManager manager, String fileName, FileHandle file, LevelParameter parameter) {
+		World world = parameter.world;
+		LevelFile level = parameter.level;
+		if (level != null) {
+			for (String image : level.getImages()) {
+				if (Sprites.isPacked(image)) {
+					level.setRegion(image, Sprites.find(manager.get(Sprites.ATLAS, TextureAtlas.class), image));
+				} else {
+					level.setTexture(image, manager.get(image, Texture.class));
+				}
+			}
+			world.prepare(level);
+			parameter.level = null;
+		} else {
+			if (manager.isLoaded(Sprites.ATLAS, TextureAtlas.class)) {
+				world.setAtlas(manager.get(Sprites.ATLAS, TextureAtlas.class));
+			}
+			world.prepare(manager.get(world.getMapName(), TiledMap.class));
+		}
+	}
+
+	@Override
+	public World loadSync(AssetManager manager, String fileName, FileHandle file, LevelParameter parameter) {
+		return parameter.world;
+	}
+}
@@ -2,5 +2,23 @@ package danielhabib.factory;
 
 public class Parameters {
 	public static final float SPEED = 5f;
+	public static final float TICK_RATE = 60f;
+	public static final int MAX_STEPS_PER_FRAME = 5;
+	public static final boolean DENSE_PHYSICS = false;
+	public static final boolean PARALLEL_SYSTEMS = false;
+	public static final boolean STREAMING = false;
+	/** Chunks around a camera or snake that are built when streaming. */
+	public static final int STREAM_RADIUS = 2;
+	/** Main-thread time a frame may spend loading a level, in milliseconds. */
+	public static final int LOAD_BUDGET_MS = 8;
+	public static final boolean SNAPSHOTS = false;
+	/** How far back snapshots can be restored. */
+	public static final float SNAPSHOT_SECONDS = 5f;
+	/** Room for the compressed snapshots; fewer seconds are kept if they do not fit. */
+	public static final int SNAPSHOT_BYTES = 16 << 20;
+	/** Writes a replay of every level played to the replays folder. */
+	public static final boolean RECORD_REPLAYS = false;
+	/** Also writes what the profiler overlay measures to the profiles folder. */
+	public static final boolean PROFILER_CSV = false;
 
 }
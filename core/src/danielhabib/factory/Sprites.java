@@ -0,0 +1,46 @@
+package danielhabib.factory;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas.AtlasRegion;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas.TextureAtlasData;
+import com.badlogic.gdx.utils.ObjectSet;
+
+/**
+ * The atlas the headless SpritePacker packs every tileset image into, each
+ * a region named after its path without the extension. Tiles of packed
+ * images draw from the atlas, so a frame binds a page or two instead of a
+ * texture per tileset; images packed since the atlas was last built load
+ * on their own.
+ */
+public class Sprites {
+	public static final String ATLAS = "sprites.atlas";
+	/** Region names in the atlas, read once; empty when there is no atlas. */
+	private static ObjectSet<String> index;
+
+	/** Whether the image, by internal path, has a region in the atlas. */
+	public static synchronized boolean isPacked(String image) {
+		if (index == null) {
+			index = new ObjectSet<String>();
+			FileHandle file = Gdx.files.internal(ATLAS);
+			if (file.exists()) {
+				for (TextureAtlasData.Region region : new TextureAtlasData(file, file.parent(), false).getRegions()) {
+					index.add(region.name);
+				}
+			}
+		}
+		return index.contains(regionName(image));
+	}
+
+	/** The image's region, or null when it was not packed. */
+	public static AtlasRegion find(TextureAtlas atlas, String image) {
+		return atlas.findRegion(regionName(image));
+	}
+
+	public static String regionName(String image) {
+		image = image.replace('\\', '/');
+		int dot = image.lastIndexOf('.');
+		return dot > image.lastIndexOf('/') ? image.substring(0, dot) : image;
+	}
+}
@@ -0,0 +1,118 @@
+package danielhabib.factory;
+
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+
+/**
+ * Tiles that never move, kept out of the engine. Cell (x, y) covers
+ * [x, x + 1) * tileWidth by [y, y + 1) * tileHeight in meters. The layer is
+ * split in {@link #CHUNK_SIZE} x {@link #CHUNK_SIZE} chunks that are flagged
+ * dirty when one of their tiles changes, so a renderer only has to rebuild
+ * those.
+ */
+public class StaticLayer {
+	public static final int CHUNK_SIZE = 16;
+
+	private final int width;
+	private final int height;
+	private final float tileWidth;
+	private final float tileHeight;
+	private final int chunksX;
+	private final int chunksY;
+	private final TiledMapTile[] tiles;
+	private final int[] counts;
+	private final boolean[] dirty;
+	private boolean anyDirty;
+
+	public StaticLayer(int width, int height, float tileWidth, float tileHeight) {
+		this.width = width;
+		this.height = height;
+		this.tileWidth = tileWidth;
+		this.tileHeight = tileHeight;
+		chunksX = (width + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		chunksY = (height + CHUNK_SIZE - 1) / CHUNK_SIZE;
+		tiles = new TiledMapTile[width * height];
+		counts = new int[chunksX * chunksY];
+		dirty = new boolean[chunksX * chunksY];
+	}
+
+	public void setTile(int x, int y, TiledMapTile tile) {
+		int index = y * width + x;
+		TiledMapTile old = tiles[index];
+		if (old == tile) {
+			return;
+		}
+		int chunk = chunkOf(x, y);
+		if (old != null) {
+			counts[chunk]--;
+		}
+		if (tile != null) {
+			counts[chunk]++;
+		}
+		tiles[index] = tile;
+		dirty[chunk] = true;
+		anyDirty = true;
+	}
+
+	public TiledMapTile getTile(int x, int y) {
+		if (x < 0 || y < 0 || x >= width || y >= height) {
+			return null;
+		}
+		return tiles[y * width + x];
+	}
+
+	public int chunkOf(int x, int y) {
+		return (y / CHUNK_SIZE) * chunksX + x / CHUNK_SIZE;
+	}
+
+	/** Number of tiles in the chunk. */
+	public int count(int chunk) {
+		return counts[chunk];
+	}
+
+	public int count() {
+		int total = 0;
+		for (int count : counts) {
+			total += count;
+		}
+		return total;
+	}
+
+	public boolean isDirty() {
+		return anyDirty;
+	}
+
+	public boolean isDirty(int chunk) {
+		return dirty[chunk];
+	}
+
+	public void clean() {
+		for (int i = 0; i < dirty.length; i++) {
+			dirty[i] = false;
+		}
+		anyDirty = false;
+	}
+
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	public float getTileWidth() {
+		return tileWidth;
+	}
+
+	public float getTileHeight() {
+		return tileHeight;
+	}
+
+	public int getChunksX() {
+		return chunksX;
+	}
+
+	public int getChunksY() {
+		return chunksY;
+	}
+}
@@ -0,0 +1,35 @@
+package danielhabib.factory;
+
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.utils.Array;
+
+import danielhabib.sandbox.systems.RenderingSystem;
+
+/**
+ * Everything about a tile id that is the same for each of its cells, worked
+ * out once per tileset: its rule, the builder for it and bounds in meters.
+ * Every entity built from the tile shares {@link #region}, so it must not be
+ * flipped or otherwise changed.
+ */
+public class TileBlueprint {
+	public final TiledMapTile tile;
+	public final String rule;
+	public final TextureRegion region;
+	public final float width;
+	public final float height;
+	public AEntityBuilder builder;
+	public boolean isStatic;
+	/** Entities built from tiles with the same rule; shared between blueprints. */
+	public Array<Entity> entities;
+
+	public TileBlueprint(TiledMapTile tile) {
+		this.tile = tile;
+		Object rule = tile.getProperties().get("rule");
+		this.rule = rule == null ? null : rule.toString();
+		region = new TextureRegion(tile.getTextureRegion());
+		width = region.getRegionWidth() * RenderingSystem.PIXELS_TO_METER;
+		height = region.getRegionHeight() * RenderingSystem.PIXELS_TO_METER;
+	}
+}
@@ -1,44 +1,345 @@
 package danielhabib.factory;
 
 import com.badlogic.ashley.core.Entity;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas;
+import com.badlogic.gdx.graphics.g2d.TextureAtlas.AtlasRegion;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.maps.tiled.TiledMap;
 import com.badlogic.gdx.maps.tiled.TiledMapTile;
 import com.badlogic.gdx.maps.tiled.TiledMapTileLayer;
 import com.badlogic.gdx.maps.tiled.TiledMapTileLayer.Cell;
+import com.badlogic.gdx.maps.tiled.TiledMapTileSet;
 import com.badlogic.gdx.maps.tiled.TmxMapLoader;
+import com.badlogic.gdx.maps.tiled.tiles.StaticTiledMapTile;
 import com.badlogic.gdx.utils.Array;
 import com.badlogic.gdx.utils.ArrayMap;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.ObjectSet;
 
-public class World {
+import danielhabib.sandbox.systems.RenderingSystem;
+
+public class World implements Disposable {
 	private String mapName;
 	public ArrayMap<String, Array<Entity>> entities;
 	public ArrayMap<String, AEntityBuilder> builders;
+	public StaticLayer staticLayer;
+	private ObjectSet<String> staticRules = new ObjectSet<String>();
+	private IntMap<TileBlueprint> blueprints = new IntMap<TileBlueprint>();
+	/** x, y of each prepared cell still to build. */
+	private IntArray cells = new IntArray();
+	private Array<TileBlueprint> cellBlueprints = new Array<TileBlueprint>();
+	private int built;
+	private boolean streaming;
+	/** Read by chunk when streaming: one of the two is set. */
+	private LevelFile level;
+	private TiledMapTileLayer layer;
+	private int width;
+	private int height;
+	private float tileWidth;
+	private float tileHeight;
+	private TextureAtlas atlas;
+	/** The map or level {@link #prepare()} loaded itself, with its textures. */
+	private Disposable loaded;
 
 	public World(ArrayMap<String, AEntityBuilder> builders, String mapName) {
 		this.builders = builders;
 		this.mapName = mapName;
 	}
 
+	/**
+	 * Tiles with these rules never move: they go to {@link #staticLayer}
+	 * instead of becoming entities. A PlatformSystem given the world hits
+	 * them as walls.
+	 */
+	public void setStaticRules(String... rules) {
+		staticRules.clear();
+		staticRules.addAll(rules);
+	}
+
+	/**
+	 * When set, preparing only resolves tiles and fills the static layer:
+	 * entities are built chunk by chunk by a {@link WorldStreamer}.
+	 */
+	public void setStreaming(boolean streaming) {
+		this.streaming = streaming;
+	}
+
+	public boolean isStreaming() {
+		return streaming;
+	}
+
+	/**
+	 * Tiles of maps loaded from TMX draw from this atlas when their tileset's
+	 * image is {@link Sprites packed} into it, through copies: the map, which
+	 * an AssetManager may share, keeps its own. Compiled levels are resolved
+	 * as their textures are set instead.
+	 */
+	public void setAtlas(TextureAtlas atlas) {
+		this.atlas = atlas;
+	}
+
+	public String getMapName() {
+		return mapName;
+	}
+
+	/** Loads the map and builds every entity at once. */
 	public void create() {
-		TiledMap map = new TmxMapLoader().load(mapName);
+		prepare();
+		build(Integer.MAX_VALUE);
+	}
+
+	/**
+	 * Loads the map, from its compiled {@link LevelFile} when there is an up
+	 * to date one, and prepares it.
+	 */
+	public void prepare() {
+		dispose();
+		FileHandle compiled = LevelFile.find(mapName);
+		if (compiled != null) {
+			LevelFile level = LevelFile.read(compiled);
+			loaded = level;
+			level.loadTextures();
+			prepare(level);
+		} else {
+			TiledMap map = new TmxMapLoader().load(mapName);
+			loaded = map;
+			prepare(map);
+		}
+	}
+
+	/**
+	 * Disposes what {@link #prepare()} loaded, once the level is over. A map
+	 * loaded through an AssetManager stays with the manager.
+	 */
+	@Override
+	public void dispose() {
+		if (loaded != null) {
+			loaded.dispose();
+			loaded = null;
+		}
+	}
+
+	/**
+	 * Resolves the tiles, fills the static layer and lists the cells that
+	 * become entities, without building any. Touches neither the engine nor
+	 * GL, so it may run off the render thread.
+	 */
+	public void prepare(TiledMap map) {
 		TiledMapTileLayer layer = (TiledMapTileLayer) map.getLayers().get(0);
-		entities = new ArrayMap<String,Array<Entity>>();
-		
+		begin(layer.getWidth(), layer.getHeight(), layer.getTileWidth(), layer.getTileHeight());
+		if (streaming) {
+			this.layer = layer;
+		}
+		for (TiledMapTileSet tileset : map.getTileSets()) {
+			blueprints(tileset, atlas == null ? null : packed(tileset));
+		}
 		for (int x = 0; x < layer.getWidth(); x++) {
 			for (int y = 0; y < layer.getHeight(); y++) {
 				Cell cell = layer.getCell(x, y);
 				if (cell != null) {
-					TiledMapTile tile = cell.getTile();
-					Object rule = tile.getProperties().get("rule");
-					String key = rule.toString();
-					if (!entities.containsKey(key)) {
-						entities.put(key, new Array<Entity>());
-					}
-					Entity entity = builders.get(key).build(x, y, tile);
-					entities.get(key).add(entity);
+					add(x, y, cell.getTile().getId());
+				}
+			}
+		}
+	}
+
+	/** Same as {@link #prepare(TiledMap)}, once the level's textures are set. */
+	public void prepare(LevelFile level) {
+		begin(level.width, level.height, level.tileWidth, level.tileHeight);
+		if (streaming) {
+			this.level = level;
+		}
+		blueprints(level.tiles, null);
+		for (int x = 0; x < level.width; x++) {
+			for (int y = 0; y < level.height; y++) {
+				int id = level.getTile(x, y);
+				if (id != 0) {
+					add(x, y, id);
 				}
 			}
 		}
 	}
 
+	/**
+	 * Builds up to {@code max} of the prepared entities.
+	 *
+	 * @return whether every entity is built
+	 */
+	public boolean build(int max) {
+		int end = (int) Math.min((long) built + max, cellBlueprints.size);
+		for (int i = built; i < end; i++) {
+			TileBlueprint blueprint = cellBlueprints.get(i);
+			blueprint.entities.add(blueprint.builder.build(cells.get(i * 2), cells.get(i * 2 + 1), blueprint));
+		}
+		built = end;
+		if (built == cellBlueprints.size) {
+			cells.clear();
+			cellBlueprints.clear();
+			built = 0;
+			return true;
+		}
+		return false;
+	}
+
+	/** Share of the prepared entities already built. */
+	public float getBuildProgress() {
+		return cellBlueprints.size == 0 ? 1 : built / (float) cellBlueprints.size;
+	}
+
+	/** Map width, in tiles. */
+	public int getWidth() {
+		return width;
+	}
+
+	public int getHeight() {
+		return height;
+	}
+
+	/** Tile width, in meters. */
+	public float getTileWidth() {
+		return tileWidth;
+	}
+
+	public float getTileHeight() {
+		return tileHeight;
+	}
+
+	/**
+	 * Lists the cells of the {@link StaticLayer#CHUNK_SIZE} square chunk at
+	 * (cx, cy) that become entities, as x, y pairs. Only reads the map, so it
+	 * may run off the engine's thread.
+	 */
+	void readChunk(int cx, int cy, IntArray cells, Array<TileBlueprint> cellBlueprints) {
+		int endX = Math.min((cx + 1) * StaticLayer.CHUNK_SIZE, width);
+		int endY = Math.min((cy + 1) * StaticLayer.CHUNK_SIZE, height);
+		for (int x = cx * StaticLayer.CHUNK_SIZE; x < endX; x++) {
+			for (int y = cy * StaticLayer.CHUNK_SIZE; y < endY; y++) {
+				int id;
+				if (level != null) {
+					id = level.getTile(x, y);
+				} else {
+					Cell cell = layer.getCell(x, y);
+					id = cell == null ? 0 : cell.getTile().getId();
+				}
+				if (id == 0) {
+					continue;
+				}
+				TileBlueprint blueprint = blueprints.get(id);
+				if (!blueprint.isStatic) {
+					cells.add(x);
+					cells.add(y);
+					cellBlueprints.add(blueprint);
+				}
+			}
+		}
+	}
+
+	/** Builds a single cell into {@link #entities}. */
+	Entity build(int x, int y, TileBlueprint blueprint) {
+		if (blueprint.entities == null) {
+			use(blueprint);
+		}
+		Entity entity = blueprint.builder.build(x, y, blueprint);
+		blueprint.entities.add(entity);
+		return entity;
+	}
+
+	/** Takes an entity built from the blueprint out of {@link #entities}. */
+	void unbuild(Entity entity, TileBlueprint blueprint) {
+		blueprint.entities.removeValue(entity, true);
+	}
+
+	private void begin(int width, int height, float tileWidth, float tileHeight) {
+		this.width = width;
+		this.height = height;
+		this.tileWidth = tileWidth * RenderingSystem.PIXELS_TO_METER;
+		this.tileHeight = tileHeight * RenderingSystem.PIXELS_TO_METER;
+		level = null;
+		layer = null;
+		entities = new ArrayMap<String,Array<Entity>>();
+		staticLayer = null;
+		if (staticRules.size > 0) {
+			staticLayer = new StaticLayer(width, height, this.tileWidth, this.tileHeight);
+		}
+		blueprints.clear();
+		cells.clear();
+		cellBlueprints.clear();
+		built = 0;
+	}
+
+	/** The region of the atlas a TMX tileset's image was packed into, null if none. */
+	private AtlasRegion packed(TiledMapTileSet tileset) {
+		Object image = tileset.getProperties().get("imagesource");
+		if (image == null) {
+			return null;
+		}
+		// relative to the map, as the packer names regions after internal paths
+		return Sprites.find(atlas, Gdx.files.internal(mapName).parent().child(image.toString()).path());
+	}
+
+	/** A copy of the tile that draws from {@code image}, its tileset's image packed in the atlas. */
+	private static TiledMapTile pack(TiledMapTile tile, AtlasRegion image) {
+		TextureRegion region = tile.getTextureRegion();
+		StaticTiledMapTile copy = new StaticTiledMapTile(new TextureRegion(image, region.getRegionX(),
+				region.getRegionY(), region.getRegionWidth(), region.getRegionHeight()));
+		copy.setId(tile.getId());
+		copy.setBlendMode(tile.getBlendMode());
+		copy.setOffsetX(tile.getOffsetX());
+		copy.setOffsetY(tile.getOffsetY());
+		copy.getProperties().putAll(tile.getProperties());
+		return copy;
+	}
+
+	/**
+	 * Resolves every tile of the tileset once, before any cell is read.
+	 *
+	 * @param packed the tileset's image in the atlas, null to draw from the tiles' own textures
+	 */
+	private void blueprints(TiledMapTileSet tileset, AtlasRegion packed) {
+		for (TiledMapTile tile : tileset) {
+			TileBlueprint blueprint = new TileBlueprint(packed == null ? tile : pack(tile, packed));
+			if (blueprint.rule != null) {
+				blueprint.isStatic = staticRules.contains(blueprint.rule);
+				blueprint.builder = builders.get(blueprint.rule);
+			}
+			blueprints.put(tile.getId(), blueprint);
+		}
+	}
+
+	private void add(int x, int y, int id) {
+		TileBlueprint blueprint = blueprints.get(id);
+		if (blueprint.isStatic) {
+			staticLayer.setTile(x, y, blueprint.tile);
+			return;
+		}
+		if (streaming) {
+			return;
+		}
+		if (blueprint.entities == null) {
+			use(blueprint);
+		}
+		cells.add(x);
+		cells.add(y);
+		cellBlueprints.add(blueprint);
+	}
+
+	/** First cell of a tile: checks it can be built and picks its list. */
+	private void use(TileBlueprint blueprint) {
+		if (blueprint.rule == null) {
+			throw new GdxRuntimeException("Tile " + blueprint.tile.getId() + " of " + mapName + " has no rule");
+		}
+		if (blueprint.builder == null) {
+			throw new GdxRuntimeException("No builder for rule " + blueprint.rule);
+		}
+		if (!entities.containsKey(blueprint.rule)) {
+			entities.put(blueprint.rule, new Array<Entity>());
+		}
+		blueprint.entities = entities.get(blueprint.rule);
+	}
+
 }
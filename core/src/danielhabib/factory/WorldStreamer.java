@@ -0,0 +1,250 @@
+package danielhabib.factory;
+
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.EntityListener;
+import com.badlogic.ashley.core.Family;
+import com.badlogic.ashley.core.PooledEngine;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Disposable;
+import com.badlogic.gdx.utils.FloatArray;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.IntMap;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.Pool;
+import com.badlogic.gdx.utils.async.AsyncExecutor;
+import com.badlogic.gdx.utils.async.AsyncResult;
+import com.badlogic.gdx.utils.async.AsyncTask;
+
+/**
+ * Keeps only the part of a streaming {@link World} around some focus points
+ * built. The map is split in {@link StaticLayer#CHUNK_SIZE} square chunks:
+ * those within {@code radius} chunks of a focus are built, those past one
+ * more chunk have their entities removed, which returns them to the engine's
+ * pools. Chunks in that extra ring are kept as they are, so a focus moving
+ * back and forth over a chunk border does not rebuild anything.
+ *
+ * Which cells of a chunk become entities is read on a background thread, in
+ * advance for the extra ring; building stays on the engine's thread, at most
+ * {@link #setBuildBudget budget} entities per update. A chunk is built again
+ * from the map each time it comes back, so what gameplay did to its entities
+ * does not survive leaving it. Entities gameplay removes are forgotten as
+ * they leave the engine: it reuses them, and a chunk must not remove one
+ * that is something else by then.
+ */
+public class WorldStreamer implements Disposable {
+	private final World world;
+	private final PooledEngine engine;
+	private final int radius;
+	private final AsyncExecutor executor = new AsyncExecutor(1);
+	private final IntMap<Chunk> chunks = new IntMap<Chunk>();
+	/** Dropped while still being read; recycled once done. */
+	private final Array<Chunk> draining = new Array<Chunk>(false, 16);
+	private final FloatArray focus = new FloatArray();
+	/** The chunk each built entity still in the engine came from. */
+	private final ObjectMap<Entity, Chunk> owners = new ObjectMap<Entity, Chunk>();
+	private final Pool<Chunk> pool = new Pool<Chunk>() {
+		@Override
+		protected Chunk newObject() {
+			return new Chunk();
+		}
+	};
+	private int buildBudget = 1024;
+	private int stamp;
+	private int activeCount;
+
+	private final EntityListener removals = new EntityListener() {
+		@Override
+		public void entityAdded(Entity entity) {
+		}
+
+		@Override
+		public void entityRemoved(Entity entity) {
+			Chunk chunk = owners.remove(entity);
+			if (chunk != null) {
+				int index = chunk.entities.indexOf(entity, true);
+				chunk.entities.set(index, null);
+				world.unbuild(entity, chunk.blueprints.get(index));
+				activeCount--;
+			}
+		}
+	};
+
+	public WorldStreamer(World world, PooledEngine engine, int radius) {
+		this.world = world;
+		this.engine = engine;
+		this.radius = radius;
+		engine.addEntityListener(Family.all().get(), removals);
+	}
+
+	/**
+	 * Entities a single update may drop, a whole row of chunks: pools of the
+	 * engine should keep that many so streaming back in allocates nothing.
+	 */
+	public static int poolSize(int radius) {
+		return (2 * radius + 3) * StaticLayer.CHUNK_SIZE * StaticLayer.CHUNK_SIZE;
+	}
+
+	/** Entities built per update at most, so a fast focus spreads the cost. */
+	public void setBuildBudget(int buildBudget) {
+		this.buildBudget = buildBudget;
+	}
+
+	/** Adds a point, in meters, to stream around on the next update. */
+	public void addFocus(float x, float y) {
+		focus.add(x);
+		focus.add(y);
+	}
+
+	/** Streams around the points added since the last update, then forgets them. */
+	public void update() {
+		if (++stamp == 0) {
+			stamp = 1;
+		}
+		int chunksX = (world.getWidth() + StaticLayer.CHUNK_SIZE - 1) / StaticLayer.CHUNK_SIZE;
+		int chunksY = (world.getHeight() + StaticLayer.CHUNK_SIZE - 1) / StaticLayer.CHUNK_SIZE;
+		float chunkWidth = StaticLayer.CHUNK_SIZE * world.getTileWidth();
+		float chunkHeight = StaticLayer.CHUNK_SIZE * world.getTileHeight();
+		int reach = radius + 1;
+		for (int i = 0; i < focus.size; i += 2) {
+			int fx = MathUtils.floor(focus.get(i) / chunkWidth);
+			int fy = MathUtils.floor(focus.get(i + 1) / chunkHeight);
+			int minX = Math.max(0, fx - reach);
+			int minY = Math.max(0, fy - reach);
+			int maxX = Math.min(chunksX - 1, fx + reach);
+			int maxY = Math.min(chunksY - 1, fy + reach);
+			for (int cy = minY; cy <= maxY; cy++) {
+				for (int cx = minX; cx <= maxX; cx++) {
+					int index = cy * chunksX + cx;
+					Chunk chunk = chunks.get(index);
+					if (chunk == null) {
+						chunk = pool.obtain();
+						chunk.cx = cx;
+						chunk.cy = cy;
+						chunk.reading = executor.submit(chunk);
+						chunks.put(index, chunk);
+					}
+					chunk.kept = stamp;
+					if (Math.abs(cx - fx) <= radius && Math.abs(cy - fy) <= radius) {
+						chunk.wanted = stamp;
+					}
+				}
+			}
+		}
+		focus.clear();
+
+		int budget = buildBudget;
+		IntMap.Values<Chunk> values = chunks.values();
+		while (values.hasNext()) {
+			Chunk chunk = values.next();
+			if (chunk.kept != stamp) {
+				values.remove();
+				drop(chunk);
+			} else if (chunk.wanted == stamp && budget > 0 && isRead(chunk)) {
+				budget -= build(chunk, budget);
+			}
+		}
+
+		for (int i = draining.size - 1; i >= 0; i--) {
+			Chunk chunk = draining.get(i);
+			if (isRead(chunk)) {
+				draining.removeIndex(i);
+				pool.free(chunk);
+			}
+		}
+	}
+
+	/** Entities built from chunks in range and still in the engine. */
+	public int getActiveCount() {
+		return activeCount;
+	}
+
+	/** Chunks in range or in the extra ring, built or not. */
+	public int getChunkCount() {
+		return chunks.size;
+	}
+
+	/** Removes every entity built so far. */
+	public void clear() {
+		for (Chunk chunk : chunks.values()) {
+			drop(chunk);
+		}
+		chunks.clear();
+	}
+
+	@Override
+	public void dispose() {
+		clear();
+		engine.removeEntityListener(removals);
+		executor.dispose();
+	}
+
+	private boolean isRead(Chunk chunk) {
+		if (chunk.reading != null) {
+			if (!chunk.reading.isDone()) {
+				return false;
+			}
+			// rethrows what went wrong reading
+			chunk.reading.get();
+			chunk.reading = null;
+		}
+		return true;
+	}
+
+	private int build(Chunk chunk, int budget) {
+		int end = Math.min(chunk.blueprints.size, chunk.entities.size + budget);
+		int count = end - chunk.entities.size;
+		for (int i = chunk.entities.size; i < end; i++) {
+			Entity entity = world.build(chunk.cells.get(i * 2), chunk.cells.get(i * 2 + 1), chunk.blueprints.get(i));
+			chunk.entities.add(entity);
+			owners.put(entity, chunk);
+		}
+		activeCount += count;
+		return count;
+	}
+
+	private void drop(Chunk chunk) {
+		for (int i = 0; i < chunk.entities.size; i++) {
+			Entity entity = chunk.entities.get(i);
+			// null once gameplay removed it
+			if (entity != null) {
+				owners.remove(entity);
+				world.unbuild(entity, chunk.blueprints.get(i));
+				engine.removeEntity(entity);
+				activeCount--;
+			}
+		}
+		chunk.entities.clear();
+		if (chunk.reading != null && !chunk.reading.isDone()) {
+			draining.add(chunk);
+		} else {
+			chunk.reading = null;
+			pool.free(chunk);
+		}
+	}
+
+	private class Chunk implements AsyncTask<Void>, Pool.Poolable {
+		int cx, cy;
+		int kept, wanted;
+		AsyncResult<Void> reading;
+		final IntArray cells = new IntArray();
+		final Array<TileBlueprint> blueprints = new Array<TileBlueprint>();
+		/** Built so far, in the order of the cells; null where gameplay removed one. */
+		final Array<Entity> entities = new Array<Entity>();
+
+		@Override
+		public Void call() {
+			world.readChunk(cx, cy, cells, blueprints);
+			return null;
+		}
+
+		@Override
+		public void reset() {
+			kept = wanted = 0;
+			reading = null;
+			cells.clear();
+			blueprints.clear();
+			entities.clear();
+		}
+	}
+}
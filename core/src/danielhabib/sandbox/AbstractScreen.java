@@ -1,6 +1,8 @@
 package danielhabib.sandbox;
 
+import com.badlogic.ashley.core.Engine;
 import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.Input.Keys;
 import com.badlogic.gdx.InputMultiplexer;
 import com.badlogic.gdx.Screen;
 import com.badlogic.gdx.graphics.OrthographicCamera;
@@ -8,7 +10,10 @@ import com.badlogic.gdx.graphics.g2d.SpriteBatch;
 import com.badlogic.gdx.scenes.scene2d.Stage;
 import com.badlogic.gdx.utils.viewport.ScreenViewport;
 
+import danielhabib.sandbox.ui.ProfilerOverlay;
+
 public abstract class AbstractScreen extends Stage implements Screen {
+	private ProfilerOverlay profilerOverlay;
 
 	protected AbstractScreen() {
 		super(new ScreenViewport(new OrthographicCamera()), new SpriteBatch());
@@ -16,6 +21,21 @@ public abstract class AbstractScreen extends Stage implements Screen {
 
 	public abstract void buildStage();
 
+	/** Lets F3 show where the ticks of the engine go, over the screen. */
+	protected void setProfiled(Engine engine) {
+		profilerOverlay = new ProfilerOverlay(engine, ScreenManager.getInstance().getAllocationCounter());
+		addActor(profilerOverlay);
+	}
+
+	@Override
+	public boolean keyDown(int keyCode) {
+		if (keyCode == Keys.F3 && profilerOverlay != null) {
+			profilerOverlay.toggle();
+			return true;
+		}
+		return super.keyDown(keyCode);
+	}
+
 	@Override
 	public void render(float delta) {
 		act(delta);
@@ -52,6 +72,9 @@ public abstract class AbstractScreen extends Stage implements Screen {
 
 	@Override
 	public void dispose() {
+		if (profilerOverlay != null) {
+			profilerOverlay.dispose();
+		}
 		super.dispose();
 	}
 
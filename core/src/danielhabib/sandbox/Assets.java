@@ -2,95 +2,127 @@ package danielhabib.sandbox;
 
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.assets.AssetManager;
-import com.badlogic.gdx.assets.loaders.SkinLoader;
+import com.badlogic.gdx.assets.loaders.resolvers.InternalFileHandleResolver;
+import com.badlogic.gdx.audio.Music;
 import com.badlogic.gdx.audio.Sound;
-import com.badlogic.gdx.graphics.Texture;
 import com.badlogic.gdx.graphics.g2d.BitmapFont;
 import com.badlogic.gdx.graphics.g2d.TextureAtlas;
-import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator;
-import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator.FreeTypeFontParameter;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.scenes.scene2d.ui.Skin;
 
+import danielhabib.factory.AssetPrefetcher;
+import danielhabib.factory.FontSkinLoader;
+import danielhabib.factory.FontSkinLoader.FontSkinParameter;
+import danielhabib.factory.LevelLoader;
+import danielhabib.factory.Sprites;
+import danielhabib.sandbox.audio.MusicPlayer;
+import danielhabib.sandbox.audio.SoundMixer;
+
 public class Assets {
+	/** Effects playing at once; SoundPool on Android allows 16 by default. */
+	private static final int MAX_VOICES = 12;
+	private static final float CROSSFADE_SECONDS = 1.5f;
 	private static final String WIN_SOUND = "win.wav";
-	private static final String BACKGROUND_SOUND = "background.mp3";
-	private static final String MENU_SOUND = "menu.mp3";
+	private static final String BACKGROUND_MUSIC = "background.mp3";
+	private static final String MENU_MUSIC = "menu.mp3";
+	/** Baked from arial.ttf by the headless FontBaker. */
+	private static final String FONT = "arial16.fnt";
 	public static Sound hitSound;
 	public static Sound fruitSound;
-	public static Sound menuSound;
 	public static Sound poisonSound;
-	public static Texture partImg;
+	public static TextureRegion partImg;
 	public static Sound diedSound;
 	public static AssetManager manager;
 	public static BitmapFont font;
 	public static Skin skin;
+	/** Kept loaded between levels, which draw their tiles from it. */
+	public static TextureAtlas sprites;
 	public static float fontScaleY;
 	public static float fontScaleX;
 	public static Sound winSound;
-	public static Sound backgroundSound;
-	private static Sound loopingSound;
+	/** Long tracks stream as Music instead of being decoded whole like a Sound. */
+	public static Music backgroundMusic;
+	public static Music menuMusic;
+	private static final MusicPlayer music = new MusicPlayer(CROSSFADE_SECONDS);
+	private static final SoundMixer mixer = new SoundMixer(MAX_VOICES);
+	private static AssetPrefetcher prefetcher;
+	private static long loadStart;
+	private static long loadNanos;
+	private static final StringBuilder prefetchReport = new StringBuilder();
 
 	public static void load() {
+		loadStart = System.nanoTime();
 		manager = new AssetManager();
-		manager.load("circle32.png", Texture.class);
-		manager.load("dead.mp3", Sound.class);
-		manager.load("hit.wav", Sound.class);
-		manager.load("apple.wav", Sound.class);
-		manager.load("poison.mp3", Sound.class);
-		manager.load(WIN_SOUND, Sound.class);
-		manager.load(BACKGROUND_SOUND, Sound.class);
-		manager.load(MENU_SOUND, Sound.class);
-		manager.load("default.fnt", BitmapFont.class);
+		prefetcher = new AssetPrefetcher();
+		prefetcher.register(manager);
+		manager.setLoader(Skin.class, new FontSkinLoader(new InternalFileHandleResolver()));
+		LevelLoader.register(manager);
+		queue(Sprites.ATLAS, TextureAtlas.class);
+		queue("dead.mp3", Sound.class);
+		queue("hit.wav", Sound.class);
+		queue("apple.wav", Sound.class);
+		queue("poison.mp3", Sound.class);
+		queue(WIN_SOUND, Sound.class);
+		manager.load(BACKGROUND_MUSIC, Music.class);
+		manager.load(MENU_MUSIC, Music.class);
+		// the skin's atlas and font are its dependencies, prefetched here
+		prefetcher.prefetch("uiskin.atlas", TextureAtlas.class);
+		prefetcher.prefetch(FONT, BitmapFont.class);
 		manager.load("uiskin.json", Skin.class,
-				new SkinLoader.SkinParameter("uiskin.atlas"));
-
-
+				new FontSkinParameter("uiskin.atlas").font("default-font", FONT));
 	}
 
-	private static BitmapFont ttfFont(String fileName, int size) {
-		FreeTypeFontGenerator generator = new FreeTypeFontGenerator(
-				Gdx.files.internal(fileName));
-		FreeTypeFontParameter parameter = new FreeTypeFontParameter();
-		parameter.size = size;
-		BitmapFont font = generator.generateFont(parameter);
-		generator.dispose();
-		return font;
+	/** Loads the file, decoding it ahead of the manager. */
+	private static void queue(String fileName, Class<?> type) {
+		prefetcher.prefetch(fileName, type);
+		manager.load(fileName, type);
 	}
 
 	public static void finishLoading() {
-		partImg = manager.get("circle32.png", Texture.class);
+		loadNanos = System.nanoTime() - loadStart;
+		prefetcher.report(prefetchReport);
+		prefetcher.dispose();
+		prefetcher = null;
+		sprites = manager.get(Sprites.ATLAS, TextureAtlas.class);
+		partImg = sprites.findRegion("circle32");
 		diedSound = manager.get("dead.mp3", Sound.class);
 		hitSound = manager.get("hit.wav", Sound.class);
 		fruitSound = manager.get("apple.wav", Sound.class);
 		winSound = manager.get(WIN_SOUND, Sound.class);
-		backgroundSound = manager.get(BACKGROUND_SOUND, Sound.class);
-		menuSound = manager.get(MENU_SOUND, Sound.class);
+		backgroundMusic = manager.get(BACKGROUND_MUSIC, Music.class);
+		menuMusic = manager.get(MENU_MUSIC, Music.class);
 		poisonSound = manager.get("poison.mp3", Sound.class);
+		// seconds, copies at once, priority
+		mixer.register(hitSound, 0.14f, 3, 0);
+		mixer.register(fruitSound, 0.65f, 4, 1);
+		mixer.register(poisonSound, 0.53f, 2, 1);
+		mixer.register(diedSound, 2.64f, 1, 2);
+		mixer.register(winSound, 0.99f, 1, 2);
 		skin = manager.get("uiskin.json", Skin.class);
 		fontScaleX = Gdx.graphics.getWidth() / 450f;
 		fontScaleY = Gdx.graphics.getHeight() / 340f;
-		font = manager.get("default.fnt", BitmapFont.class);
+		font = skin.getFont("default-font");
+	}
 
-		skin.remove("default-font", BitmapFont.class);
-		skin.add("deafult-font", ttfFont("arial.ttf", 16), BitmapFont.class);
-		skin.addRegions(new TextureAtlas(Gdx.files.internal("uiskin.atlas")));
-		skin.load(Gdx.files.internal("uiskin.json"));
-		font = skin.get("default-font", BitmapFont.class);
+	/** Appends how long loading took, from {@link #load} to {@link #finishLoading}. */
+	public static void report(StringBuilder out) {
+		out.append("assets loaded in ").append(loadNanos / 1000000).append(" ms, ").append(prefetchReport);
 	}
 
+	/** Plays an effect through the mixer, see {@link SoundMixer}. */
 	public static void playSound(Sound sound) {
-		sound.play(1);
+		mixer.play(sound, 1);
+	}
+
+	/** Crossfades to the track, unless it plays already. */
+	public static void loop(Music track) {
+		music.loop(track);
 	}
 
-	public static void loop(Sound sound) {
-		if (loopingSound == sound) {
-			return;
-		}
-		if (loopingSound != null) {
-			loopingSound.stop();
-		}
-		sound.loop();
-		loopingSound = sound;
+	/** Fades the music and frees the effects that ended; once per frame. */
+	public static void update(float delta) {
+		music.update(delta);
+		mixer.update(delta);
 	}
 
 }
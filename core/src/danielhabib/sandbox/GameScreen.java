@@ -1,66 +1,123 @@
 package danielhabib.sandbox;
 
-import com.badlogic.ashley.core.PooledEngine;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.Input.Keys;
+import com.badlogic.gdx.audio.Sound;
 import com.badlogic.gdx.graphics.g2d.SpriteBatch;
-import com.badlogic.gdx.utils.ArrayMap;
-
-import danielhabib.factory.AEntityBuilder;
-import danielhabib.factory.NOPEntityBuilder;
-import danielhabib.factory.World;
-import danielhabib.sandbox.systems.BoundsSystem;
-import danielhabib.sandbox.systems.MovementSystem;
-import danielhabib.sandbox.systems.PlatformSystem;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import danielhabib.factory.Parameters;
+import danielhabib.sandbox.events.EventBus;
+import danielhabib.sandbox.events.HitEvent;
 import danielhabib.sandbox.systems.RenderingSystem;
-import danielhabib.sandbox.systems.RotationSystem;
-import danielhabib.sandbox.systems.TemporarySpeedSystem;
-import danielhabib.sandbox.systems.TimeoutSystem;
+import danielhabib.sandbox.types.PlatformType;
 
-public class GameScreen extends AbstractScreen {
+public class GameScreen extends AbstractScreen implements Loadable {
 
-	private PooledEngine engine;
+	private Simulation simulation;
+	private RenderingSystem renderingSystem;
 	private SpriteBatch gameBatch;
-	private World world;
 	private int level;
+	private Replay replay;
+
+	/** A sound per kind of hit and tick, however many there were. */
+	private final EventBus.Listener<HitEvent> hitSounds = new EventBus.Listener<HitEvent>() {
+		@Override
+		public void handle(Array<HitEvent> events) {
+			int played = 0;
+			for (int i = 0; i < events.size; i++) {
+				PlatformType type = events.get(i).type;
+				if ((played & 1 << type.ordinal()) == 0) {
+					played |= 1 << type.ordinal();
+					Assets.playSound(sound(type));
+				}
+			}
+		}
+	};
 
 	public GameScreen(Integer[] params) {
 		this.level = params[0];
-		Assets.loop(Assets.backgroundSound);
+		Assets.loop(Assets.backgroundMusic);
 	}
 
 	@Override
 	public void render(float delta) {
 		if (Gdx.input.isKeyJustPressed(Keys.Q)) {
 			ScreenManager.getInstance().showScreen(ScreenEnum.MAIN_MENU);
+			return;
 		}
-		engine.update(delta);
+		simulation.update(delta);
+		renderingSystem.setAlpha(simulation.timestep.getAlpha());
+		renderingSystem.update(delta);
 		super.render(delta);
 	}
 
 	@Override
 	public void buildStage() {
-		engine = new PooledEngine();
+		simulation = new Simulation(level);
+		simulation.events.subscribe(HitEvent.class, hitSounds);
+		gameBatch = new SpriteBatch();
+
+		renderingSystem = new RenderingSystem(gameBatch);
+		// drawn once per frame from render(), not once per tick
+		renderingSystem.setProcessing(false);
+		simulation.engine.addSystem(renderingSystem);
+		setProfiled(simulation.engine);
+		simulation.queue(Assets.manager);
+		if (Parameters.RECORD_REPLAYS) {
+			replay = simulation.record();
+		}
+	}
 
-		ArrayMap<String, AEntityBuilder> builders;
-		builders = new ArrayMap<String, AEntityBuilder>();
-		builders.put("fruit", new NOPEntityBuilder(engine));
-		builders.put("poison", new NOPEntityBuilder(engine));
-		builders.put("speed", new NOPEntityBuilder(engine));
-		builders.put("identityRule", new NOPEntityBuilder(engine));
-		builders.put("head", new NOPEntityBuilder(engine));
+	private static Sound sound(PlatformType type) {
+		switch (type) {
+		case FRUIT:
+			return Assets.fruitSound;
+		case POISON:
+			return Assets.poisonSound;
+		default:
+			return Assets.hitSound;
+		}
+	}
 
-		world = new World(builders, "map" + level + ".tmx");
-		gameBatch = new SpriteBatch();
+	@Override
+	public boolean keyDown(int keyCode) {
+		simulation.input.keyDown(keyCode);
+		return super.keyDown(keyCode);
+	}
 
-		engine.addSystem(new PlatformSystem());
-		engine.addSystem(new MovementSystem());
-		engine.addSystem(new RenderingSystem(gameBatch));
-		engine.addSystem(new BoundsSystem());
-		engine.addSystem(new RotationSystem());
-		engine.addSystem(new TimeoutSystem());
-		engine.addSystem(new TemporarySpeedSystem());
-		world.create();
+	@Override
+	public boolean keyUp(int keyCode) {
+		simulation.input.keyUp(keyCode);
+		return super.keyUp(keyCode);
+	}
+
+	@Override
+	public boolean load(int millis) {
+		if (!simulation.load(Assets.manager, millis)) {
+			return false;
+		}
+		renderingSystem.setStaticLayer(simulation.world.staticLayer);
+		return true;
+	}
+
+	@Override
+	public float getLoadProgress() {
+		return simulation.getLoadProgress();
+	}
+
+	@Override
+	public void dispose() {
+		if (replay != null) {
+			replay.finish(simulation.input.getTick(), simulation.engine);
+			replay.write(Gdx.files.local("replays/map" + level + "-" + TimeUtils.millis() + Replay.EXTENSION));
+		}
+		simulation.engine.removeSystem(renderingSystem);
+		gameBatch.dispose();
+		simulation.unload(Assets.manager);
+		simulation.dispose();
+		super.dispose();
 	}
 
 }
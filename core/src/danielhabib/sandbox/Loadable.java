@@ -0,0 +1,16 @@
+package danielhabib.sandbox;
+
+/**
+ * A screen with work to do before it can be shown, done a little per frame
+ * by a {@link LoadingScreen}.
+ */
+public interface Loadable {
+	/**
+	 * Loads for about {@code millis} milliseconds.
+	 *
+	 * @return whether loading is over
+	 */
+	public boolean load(int millis);
+
+	public float getLoadProgress();
+}
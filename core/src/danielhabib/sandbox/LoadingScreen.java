@@ -0,0 +1,53 @@
+package danielhabib.sandbox;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.scenes.scene2d.ui.Label;
+import com.badlogic.gdx.scenes.scene2d.ui.Table;
+
+import danielhabib.factory.Parameters;
+import danielhabib.sandbox.ui.UIFactory;
+
+/**
+ * Shows loading progress while its target loads, at most
+ * {@link Parameters#LOAD_BUDGET_MS} per frame, then hands over to it.
+ */
+public class LoadingScreen extends AbstractScreen {
+	private final AbstractScreen target;
+	private final Loadable loadable;
+	private Label label;
+	private boolean shown;
+
+	public <S extends AbstractScreen & Loadable> LoadingScreen(S target) {
+		this.target = target;
+		this.loadable = target;
+	}
+
+	@Override
+	public void buildStage() {
+		target.buildStage();
+		label = UIFactory.newLabel();
+		Table table = new Table();
+		table.setBounds(0, 0, Gdx.graphics.getWidth(), Gdx.graphics.getHeight());
+		table.add(label);
+		addActor(table);
+	}
+
+	@Override
+	public void render(float delta) {
+		if (loadable.load(Parameters.LOAD_BUDGET_MS)) {
+			shown = true;
+			ScreenManager.getInstance().showScreen(target);
+			return;
+		}
+		label.setText("Loading... " + (int) (loadable.getLoadProgress() * 100) + "%");
+		super.render(delta);
+	}
+
+	@Override
+	public void dispose() {
+		if (!shown) {
+			target.dispose();
+		}
+		super.dispose();
+	}
+}
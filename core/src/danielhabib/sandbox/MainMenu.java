@@ -35,7 +35,7 @@ public class MainMenu extends AbstractScreen {
 		});
 
 		addActor(table);
-		Assets.loop(Assets.menuSound);
+		Assets.loop(Assets.menuMusic);
 	}
 
 	@Override
@@ -0,0 +1,204 @@
+package danielhabib.sandbox;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import com.badlogic.ashley.core.ComponentMapper;
+import com.badlogic.ashley.core.Engine;
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.utils.ImmutableArray;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.LongArray;
+import com.badlogic.gdx.utils.StreamUtils;
+
+import danielhabib.sandbox.components.MovementComponent;
+import danielhabib.sandbox.components.TransformComponent;
+import danielhabib.sandbox.systems.InputSystem;
+
+/**
+ * What a {@link Simulation} needs to run the same ticks again: its map, its
+ * random seed and the key events of each tick, as applied by an
+ * {@link InputSystem}. The tick count and a checksum of the state it ended
+ * in tell whether playing it back gave the same result. Layout, big endian:
+ *
+ * <pre>
+ * int magic, int version
+ * UTF map name, long seed, float tick rate, long ticks, long checksum
+ * int events, then per event:
+ *     varint ticks since the previous event, varint key << 1 | 1 if down
+ * </pre>
+ */
+public class Replay {
+	public static final String EXTENSION = ".replay";
+	private static final int MAGIC = 0x534e4b52;
+	private static final int VERSION = 1;
+
+	private final String mapName;
+	private final long seed;
+	private final float tickRate;
+	private long ticks;
+	private long checksum;
+	private final LongArray eventTicks = new LongArray();
+	/** key << 1 | 1 if down */
+	private final IntArray events = new IntArray();
+	private int cursor;
+
+	public Replay(String mapName, long seed, float tickRate) {
+		this.mapName = mapName;
+		this.seed = seed;
+		this.tickRate = tickRate;
+	}
+
+	public String getMapName() {
+		return mapName;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	public float getTickRate() {
+		return tickRate;
+	}
+
+	/** Ticks recorded, up to {@link #finish}. */
+	public long getTicks() {
+		return ticks;
+	}
+
+	public long getChecksum() {
+		return checksum;
+	}
+
+	public int getEventCount() {
+		return events.size;
+	}
+
+	/** Records an event applied at the start of {@code tick}. */
+	public void add(long tick, int key, boolean down) {
+		eventTicks.add(tick);
+		events.add(key << 1 | (down ? 1 : 0));
+	}
+
+	/** Ends the recording after {@code ticks} ticks, in the state of the engine. */
+	public void finish(long ticks, Engine engine) {
+		this.ticks = ticks;
+		checksum = checksum(engine);
+	}
+
+	/** Applies the events of every tick up to {@code tick} not applied yet. */
+	public void poll(long tick, InputSystem input) {
+		while (cursor < events.size && eventTicks.get(cursor) <= tick) {
+			int event = events.get(cursor++);
+			input.apply(event >>> 1, (event & 1) != 0);
+		}
+	}
+
+	/** Plays from the first event again. */
+	public void rewind() {
+		cursor = 0;
+	}
+
+	/**
+	 * Hash of where every entity is and how it moves, in the engine's order:
+	 * equal after the same ticks from the same seed and input.
+	 */
+	public static long checksum(Engine engine) {
+		ComponentMapper<TransformComponent> tm = ComponentMapper.getFor(TransformComponent.class);
+		ComponentMapper<MovementComponent> mm = ComponentMapper.getFor(MovementComponent.class);
+		ImmutableArray<Entity> entities = engine.getEntities();
+		long hash = entities.size();
+		for (int i = 0; i < entities.size(); i++) {
+			Entity entity = entities.get(i);
+			TransformComponent transform = tm.get(entity);
+			if (transform != null) {
+				hash = hash * 31 + Float.floatToIntBits(transform.pos.x);
+				hash = hash * 31 + Float.floatToIntBits(transform.pos.y);
+				hash = hash * 31 + Float.floatToIntBits(transform.rotation);
+			}
+			MovementComponent movement = mm.get(entity);
+			if (movement != null) {
+				hash = hash * 31 + Float.floatToIntBits(movement.velocity.x);
+				hash = hash * 31 + Float.floatToIntBits(movement.velocity.y);
+			}
+		}
+		return hash;
+	}
+
+	public void write(FileHandle file) {
+		DataOutputStream out = new DataOutputStream(file.write(false, 8192));
+		try {
+			out.writeInt(MAGIC);
+			out.writeInt(VERSION);
+			out.writeUTF(mapName);
+			out.writeLong(seed);
+			out.writeFloat(tickRate);
+			out.writeLong(ticks);
+			out.writeLong(checksum);
+			out.writeInt(events.size);
+			long previous = 0;
+			for (int i = 0; i < events.size; i++) {
+				long tick = eventTicks.get(i);
+				writeVarint(out, tick - previous);
+				writeVarint(out, events.get(i) & 0xffffffffL);
+				previous = tick;
+			}
+		} catch (IOException ex) {
+			throw new GdxRuntimeException("Error writing " + file, ex);
+		} finally {
+			StreamUtils.closeQuietly(out);
+		}
+	}
+
+	public static Replay read(FileHandle file) {
+		DataInputStream in = new DataInputStream(file.read(8192));
+		try {
+			if (in.readInt() != MAGIC) {
+				throw new GdxRuntimeException(file + " is not a replay");
+			}
+			int version = in.readInt();
+			if (version != VERSION) {
+				throw new GdxRuntimeException(file + " is version " + version + ", expected " + VERSION);
+			}
+			Replay replay = new Replay(in.readUTF(), in.readLong(), in.readFloat());
+			replay.ticks = in.readLong();
+			replay.checksum = in.readLong();
+			int count = in.readInt();
+			replay.eventTicks.ensureCapacity(count);
+			replay.events.ensureCapacity(count);
+			long tick = 0;
+			for (int i = 0; i < count; i++) {
+				tick += readVarint(in);
+				replay.eventTicks.add(tick);
+				replay.events.add((int) readVarint(in));
+			}
+			return replay;
+		} catch (IOException ex) {
+			throw new GdxRuntimeException("Error reading " + file, ex);
+		} finally {
+			StreamUtils.closeQuietly(in);
+		}
+	}
+
+	private static void writeVarint(DataOutputStream out, long value) throws IOException {
+		while ((value & ~0x7fL) != 0) {
+			out.writeByte((int) (value & 0x7f) | 0x80);
+			value >>>= 7;
+		}
+		out.writeByte((int) value);
+	}
+
+	private static long readVarint(DataInputStream in) throws IOException {
+		long value = 0;
+		for (int shift = 0;; shift += 7) {
+			int b = in.readUnsignedByte();
+			value |= (long) (b & 0x7f) << shift;
+			if ((b & 0x80) == 0) {
+				return value;
+			}
+		}
+	}
+}
@@ -4,14 +4,30 @@ import com.badlogic.gdx.Game;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.GL20;
 
+import danielhabib.factory.Parameters;
+import danielhabib.sandbox.systems.AllocationCounter;
+
 public class SandboxGame extends Game {
+	private final AllocationCounter allocations;
 	private boolean done;
 	private boolean showed;
+	private long created;
+	private int loadingFrames;
+
+	public SandboxGame() {
+		this(AllocationCounter.NONE);
+	}
+
+	/** @param allocations what the profiler overlay counts allocations with */
+	public SandboxGame(AllocationCounter allocations) {
+		this.allocations = allocations;
+	}
 
 	@Override
 	public void create() {
+		created = System.nanoTime();
 		Assets.load();
-		ScreenManager.getInstance().initialize(this);
+		ScreenManager.getInstance().initialize(this, allocations);
 	}
 
 	@Override
@@ -19,13 +35,21 @@ public class SandboxGame extends Game {
 		Gdx.gl.glClearColor(0, 0, .2f, 0);
 		Gdx.gl.glClear(GL20.GL_COLOR_BUFFER_BIT);
 		super.render();
+		Assets.update(Gdx.graphics.getDeltaTime());
 		if (!done) {
-			done = Assets.manager.update();
+			// bounded, so the loading screen keeps drawing
+			done = Assets.manager.update(Parameters.LOAD_BUDGET_MS);
+			loadingFrames++;
 		}
 		if (done && !showed) {
 			Assets.finishLoading();
 			ScreenManager.getInstance().showScreen(ScreenEnum.MAIN_MENU);
 			showed = true;
+			StringBuilder report = new StringBuilder();
+			report.append("main menu ").append((System.nanoTime() - created) / 1000000).append(" ms after create, ")
+					.append(loadingFrames).append(" frames; ");
+			Assets.report(report);
+			Gdx.app.log("Startup", report.toString());
 		}
 	}
 }
@@ -19,7 +19,7 @@ public enum ScreenEnum {
 	GAME {
 		@Override
 		public AbstractScreen getScreen(Integer... params) {
-			return new GameScreen(params);
+			return new LoadingScreen(new GameScreen(params));
 		}
 	},
 
@@ -3,6 +3,8 @@ package danielhabib.sandbox;
 import com.badlogic.gdx.Game;
 import com.badlogic.gdx.Screen;
 
+import danielhabib.sandbox.systems.AllocationCounter;
+
 public class ScreenManager {
 
 	// Singleton: unique instance
@@ -11,10 +13,16 @@ public class ScreenManager {
 	// Reference to game
 	private Game game;
 
+	private AllocationCounter allocations = AllocationCounter.NONE;
+
 	public Game getGame() {
 		return game;
 	}
 
+	public AllocationCounter getAllocationCounter() {
+		return allocations;
+	}
+
 	// Singleton!?: private constructor
 	private ScreenManager() {
 		super();
@@ -29,16 +37,22 @@ public class ScreenManager {
 	}
 
 	// Initialization with the game class
-	public void initialize(Game game) {
+	public void initialize(Game game, AllocationCounter allocations) {
 		this.game = game;
+		this.allocations = allocations;
 	}
 
 	public void showScreen(ScreenEnum screenEnum, Integer... params) {
+		AbstractScreen newScreen = screenEnum.getScreen(params);
+		newScreen.buildStage();
+		showScreen(newScreen);
+	}
+
+	// Shows a screen whose stage is already built
+	public void showScreen(AbstractScreen newScreen) {
 
 		Screen previousScreen = game.getScreen();
 
-		AbstractScreen newScreen = screenEnum.getScreen(params);
-		newScreen.buildStage();
 		game.setScreen(newScreen);
 
 		if (previousScreen != null) {
@@ -0,0 +1,251 @@
+package danielhabib.sandbox;
+
+import com.badlogic.ashley.core.EntitySystem;
+import com.badlogic.ashley.core.PooledEngine;
+import com.badlogic.gdx.assets.AssetManager;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ArrayMap;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import danielhabib.factory.AEntityBuilder;
+import danielhabib.factory.LevelLoader;
+import danielhabib.factory.NOPEntityBuilder;
+import danielhabib.factory.Parameters;
+import danielhabib.factory.World;
+import danielhabib.factory.WorldStreamer;
+import danielhabib.sandbox.events.EventBus;
+import danielhabib.sandbox.systems.BoundsSystem;
+import danielhabib.sandbox.systems.DensePhysicsSystem;
+import danielhabib.sandbox.systems.EventSystem;
+import danielhabib.sandbox.systems.FixedTimestep;
+import danielhabib.sandbox.systems.InputSystem;
+import danielhabib.sandbox.systems.ModifierSystem;
+import danielhabib.sandbox.systems.MovementSystem;
+import danielhabib.sandbox.systems.PlatformSystem;
+import danielhabib.sandbox.systems.RotationSystem;
+import danielhabib.sandbox.systems.SnakeMovementSystem;
+import danielhabib.sandbox.systems.SnapshotSystem;
+import danielhabib.sandbox.systems.StreamingSystem;
+import danielhabib.sandbox.systems.SystemScheduler;
+import danielhabib.sandbox.systems.TimeoutSystem;
+import danielhabib.sandbox.systems.TransformHistorySystem;
+
+/**
+ * A level and the engine running it, without anything that needs a display:
+ * no rendering, audio or Scene2D. {@link GameScreen} adds rendering on top,
+ * the headless runtime ticks it as is.
+ */
+public class Simulation {
+	public final PooledEngine engine;
+	public final World world;
+	public final FixedTimestep timestep;
+	/** Keys as of the current tick; screens queue their key events on it. */
+	public final InputSystem input;
+	/** Hits, timeouts and other gameplay events, delivered at the end of each tick. */
+	public final EventBus events = new EventBus();
+	/** Builds the level around cameras and snakes; null unless streaming. */
+	public final WorldStreamer streamer;
+	/** Restores the last seconds of ticks; null unless {@link Parameters#SNAPSHOTS}. */
+	public final SnapshotSystem snapshots;
+	private static final int BUILD_SLICE = 256;
+	/** Null unless the systems run in parallel. */
+	private final SystemScheduler scheduler;
+	private boolean queued;
+	private long seed = MathUtils.random.nextLong();
+	private boolean seeded;
+	private float loadProgress;
+
+	public Simulation(int level) {
+		this("map" + level + ".tmx");
+	}
+
+	public Simulation(String mapName) {
+		this(mapName, Parameters.DENSE_PHYSICS, Parameters.PARALLEL_SYSTEMS);
+	}
+
+	public Simulation(String mapName, boolean densePhysics, boolean parallel) {
+		this(mapName, densePhysics, parallel, Parameters.STREAMING);
+	}
+
+	/**
+	 * @param densePhysics moves, rotates and bounds entities with a
+	 *            {@link DensePhysicsSystem} instead of one system each
+	 * @param parallel runs the systems through a {@link SystemScheduler}, the
+	 *            ones that do not conflict at the same time
+	 * @param streaming builds entities only near cameras and snakes, through
+	 *            a {@link WorldStreamer}
+	 */
+	public Simulation(String mapName, boolean densePhysics, boolean parallel, boolean streaming) {
+		if (streaming) {
+			int poolSize = WorldStreamer.poolSize(Parameters.STREAM_RADIUS);
+			engine = new PooledEngine(10, poolSize, 10, poolSize);
+		} else {
+			engine = new PooledEngine();
+		}
+
+		ArrayMap<String, AEntityBuilder> builders;
+		builders = new ArrayMap<String, AEntityBuilder>();
+		builders.put("fruit", new NOPEntityBuilder(engine));
+		builders.put("poison", new NOPEntityBuilder(engine));
+		builders.put("speed", new NOPEntityBuilder(engine));
+		builders.put("identityRule", new NOPEntityBuilder(engine));
+		builders.put("head", new NOPEntityBuilder(engine));
+
+		world = new World(builders, mapName);
+		world.setStaticRules("identityRule");
+		world.setStreaming(streaming);
+
+		Array<EntitySystem> systems = new Array<EntitySystem>();
+		input = new InputSystem();
+		systems.add(input);
+		if (streaming) {
+			streamer = new WorldStreamer(world, engine, Parameters.STREAM_RADIUS);
+			systems.add(new StreamingSystem(streamer));
+		} else {
+			streamer = null;
+		}
+		systems.add(new TransformHistorySystem());
+		systems.add(new PlatformSystem(world));
+		systems.add(new SnakeMovementSystem(world));
+		if (densePhysics) {
+			systems.add(new DensePhysicsSystem());
+		} else {
+			systems.add(new MovementSystem());
+			systems.add(new BoundsSystem());
+			systems.add(new RotationSystem());
+		}
+		systems.add(new TimeoutSystem());
+		systems.add(new ModifierSystem());
+		snapshots = Parameters.SNAPSHOTS ? new SnapshotSystem() : null;
+
+		if (parallel) {
+			scheduler = new SystemScheduler();
+			for (EntitySystem system : systems) {
+				scheduler.add(system);
+			}
+			engine.addSystem(scheduler);
+		} else {
+			scheduler = null;
+			for (EntitySystem system : systems) {
+				engine.addSystem(system);
+			}
+		}
+		engine.addSystem(new EventSystem(events));
+		// on the engine, as the last system, so it sees what the event callbacks did
+		if (snapshots != null) {
+			engine.addSystem(snapshots);
+		}
+
+		timestep = new FixedTimestep(engine, Parameters.TICK_RATE, Parameters.MAX_STEPS_PER_FRAME);
+	}
+
+	/** Loads the map and builds its entities. */
+	public void create() {
+		seed();
+		world.create();
+	}
+
+	/** Queues the level on the manager, to be loaded with {@link #load} instead of {@link #create()}. */
+	public void queue(AssetManager manager) {
+		manager.load(LevelLoader.assetName(world), World.class, new LevelLoader.LevelParameter(world));
+		queued = true;
+	}
+
+	/**
+	 * Loads for about {@code millis} milliseconds of the calling thread: the
+	 * manager's main-thread work first, then building entities.
+	 *
+	 * @return whether the level is ready
+	 */
+	public boolean load(AssetManager manager, int millis) {
+		long start = TimeUtils.millis();
+		if (!manager.isLoaded(LevelLoader.assetName(world), World.class)) {
+			if (!manager.update(millis)) {
+				loadProgress = manager.getProgress() * 0.5f;
+				return false;
+			}
+		}
+		seed();
+		boolean built;
+		// in slices, so the budget is checked while building
+		do {
+			built = world.build(BUILD_SLICE);
+		} while (!built && TimeUtils.timeSinceMillis(start) < millis);
+		loadProgress = 0.5f + world.getBuildProgress() * 0.5f;
+		return built;
+	}
+
+	/** From 0 to 1 while {@link #load} runs. */
+	public float getLoadProgress() {
+		return loadProgress;
+	}
+
+	/** Unloads the map of a level that was {@link #queue queued}, loaded or not. */
+	public void unload(AssetManager manager) {
+		if (queued) {
+			manager.unload(LevelLoader.assetName(world));
+			queued = false;
+		}
+	}
+
+	/**
+	 * Seeds {@link MathUtils#random} with this when the level starts being
+	 * built, so everything random from there on happens again with the same
+	 * seed and input.
+	 */
+	public void setSeed(long seed) {
+		this.seed = seed;
+	}
+
+	public long getSeed() {
+		return seed;
+	}
+
+	/** Records the input of every tick from now on; call before the level is built. */
+	public Replay record() {
+		Replay replay = new Replay(world.getMapName(), seed, Parameters.TICK_RATE);
+		input.record(replay);
+		return replay;
+	}
+
+	/**
+	 * Plays a replay of this map from now on: its seed and its input instead
+	 * of the screen's. Call before the level is built.
+	 */
+	public void play(Replay replay) {
+		setSeed(replay.getSeed());
+		input.play(replay);
+	}
+
+	/**
+	 * Stops the threads of the streamer and the scheduler, if any, and
+	 * disposes the textures of a level that was {@link #create() created}.
+	 */
+	public void dispose() {
+		if (streamer != null) {
+			streamer.dispose();
+		}
+		world.dispose();
+		if (scheduler != null) {
+			scheduler.dispose();
+		}
+	}
+
+	/** Advances by frame time, in whole ticks. */
+	public int update(float delta) {
+		return timestep.update(delta);
+	}
+
+	private void seed() {
+		if (!seeded) {
+			MathUtils.random.setSeed(seed);
+			seeded = true;
+		}
+	}
+
+	/** Advances exactly one tick, whatever time it is. */
+	public void tick() {
+		timestep.tick();
+	}
+}
@@ -0,0 +1,69 @@
+package danielhabib.sandbox.audio;
+
+import com.badlogic.gdx.audio.Music;
+
+/**
+ * Loops one streamed track at a time, crossfading into the next: the old
+ * track fades out while the new one fades in, then stops. Needs
+ * {@link #update} every frame.
+ */
+public class MusicPlayer {
+	private final float fadeSeconds;
+	private float volume = 1;
+	private Music current;
+	private Music fading;
+	private float elapsed;
+
+	public MusicPlayer(float fadeSeconds) {
+		this.fadeSeconds = fadeSeconds;
+	}
+
+	/** Crossfades to the track, unless it is the one playing already. */
+	public void loop(Music music) {
+		if (music == current) {
+			return;
+		}
+		if (fading != null) {
+			fading.stop();
+		}
+		fading = current;
+		current = music;
+		elapsed = 0;
+		if (current != null) {
+			current.setLooping(true);
+			current.setVolume(0);
+			current.play();
+		}
+		update(0);
+	}
+
+	/** Fades out whatever plays. */
+	public void stop() {
+		loop(null);
+	}
+
+	public void setVolume(float volume) {
+		this.volume = volume;
+		update(0);
+	}
+
+	public Music getCurrent() {
+		return current;
+	}
+
+	public void update(float delta) {
+		elapsed += delta;
+		float share = fadeSeconds <= 0 ? 1 : Math.min(1, elapsed / fadeSeconds);
+		if (current != null) {
+			current.setVolume(volume * share);
+		}
+		if (fading != null) {
+			if (share >= 1) {
+				fading.stop();
+				fading = null;
+			} else {
+				fading.setVolume(volume * (1 - share));
+			}
+		}
+	}
+}
@@ -0,0 +1,153 @@
+package danielhabib.sandbox.audio;
+
+import com.badlogic.gdx.audio.Sound;
+import com.badlogic.gdx.utils.ObjectMap;
+
+/**
+ * Plays short effects within a fixed number of voices. Each sound is
+ * registered with how long it lasts, how many copies of it may play at once
+ * and a priority:
+ * <ul>
+ * <li>a sound played again in the same frame is not played twice;</li>
+ * <li>a sound at its cap takes over its own oldest voice;</li>
+ * <li>when every voice is busy, the new sound takes over the oldest voice
+ * of the lowest priority, if not higher than its own, or is dropped.</li>
+ * </ul>
+ * Voices are kept in primitive arrays and {@link #update} is called every
+ * frame to free the ones that ended, so playing allocates nothing.
+ */
+public class SoundMixer {
+	private final ObjectMap<Sound, Effect> effects = new ObjectMap<Sound, Effect>();
+	private final Effect[] voiceEffects;
+	private final long[] voiceIds;
+	private final float[] voiceStarts;
+	private int voices;
+	private float time;
+	private long frame;
+
+	private static class Effect {
+		final Sound sound;
+		final float seconds;
+		final int cap;
+		final int priority;
+		int playing;
+		long playedFrame = -1;
+
+		Effect(Sound sound, float seconds, int cap, int priority) {
+			this.sound = sound;
+			this.seconds = seconds;
+			this.cap = cap;
+			this.priority = priority;
+		}
+	}
+
+	/** @param maxVoices effects playing at once, over every sound */
+	public SoundMixer(int maxVoices) {
+		voiceEffects = new Effect[maxVoices];
+		voiceIds = new long[maxVoices];
+		voiceStarts = new float[maxVoices];
+	}
+
+	/**
+	 * @param seconds how long the sound plays
+	 * @param cap copies of it playing at once
+	 * @param priority higher ones take voices from lower ones
+	 */
+	public void register(Sound sound, float seconds, int cap, int priority) {
+		effects.put(sound, new Effect(sound, seconds, cap, priority));
+	}
+
+	/**
+	 * Plays the sound if the rules above let it; sounds that were not
+	 * registered play once per frame with the lowest priority.
+	 *
+	 * @return whether it plays
+	 */
+	public boolean play(Sound sound, float volume) {
+		Effect effect = effects.get(sound);
+		if (effect == null) {
+			effect = new Effect(sound, 1, voiceIds.length, Integer.MIN_VALUE);
+			effects.put(sound, effect);
+		}
+		if (effect.playedFrame == frame) {
+			return false;
+		}
+		int voice = -1;
+		if (effect.playing >= effect.cap) {
+			voice = oldest(effect, Integer.MAX_VALUE);
+		} else if (voices == voiceIds.length) {
+			voice = oldest(null, effect.priority);
+			if (voice < 0) {
+				return false;
+			}
+		}
+		if (voice >= 0) {
+			voiceEffects[voice].sound.stop(voiceIds[voice]);
+			release(voice);
+		}
+		long id = sound.play(volume);
+		if (id == -1) {
+			return false;
+		}
+		voiceEffects[voices] = effect;
+		voiceIds[voices] = id;
+		voiceStarts[voices] = time;
+		voices++;
+		effect.playing++;
+		effect.playedFrame = frame;
+		return true;
+	}
+
+	/** Frees the voices that ended and starts a new frame. */
+	public void update(float delta) {
+		time += delta;
+		frame++;
+		for (int i = voices - 1; i >= 0; i--) {
+			if (time - voiceStarts[i] >= voiceEffects[i].seconds) {
+				release(i);
+			}
+		}
+	}
+
+	/** Voices playing, as far as the registered lengths tell. */
+	public int getVoiceCount() {
+		return voices;
+	}
+
+	/** Stops every effect. */
+	public void stopAll() {
+		while (voices > 0) {
+			voiceEffects[voices - 1].sound.stop(voiceIds[voices - 1]);
+			release(voices - 1);
+		}
+	}
+
+	/**
+	 * The oldest voice of the effect, or with null, the oldest of the
+	 * lowest priority up to {@code maxPriority}; -1 if there is none.
+	 */
+	private int oldest(Effect effect, int maxPriority) {
+		int found = -1;
+		for (int i = 0; i < voices; i++) {
+			Effect other = voiceEffects[i];
+			if (effect != null ? other != effect : other.priority > maxPriority) {
+				continue;
+			}
+			if (found < 0 || other.priority < voiceEffects[found].priority
+					|| other.priority == voiceEffects[found].priority && voiceStarts[i] < voiceStarts[found]) {
+				found = i;
+			}
+		}
+		return found;
+	}
+
+	/** Swaps the last voice into {@code index}. */
+	private void release(int index) {
+		voiceEffects[index].playing--;
+		int last = --voices;
+		voiceEffects[index] = voiceEffects[last];
+		voiceIds[index] = voiceIds[last];
+		voiceStarts[index] = voiceStarts[last];
+		voiceEffects[last] = null;
+	}
+}
@@ -0,0 +1,92 @@
+package danielhabib.sandbox.components;
+
+import com.badlogic.ashley.core.Component;
+import com.badlogic.gdx.math.Vector2;
+import com.badlogic.gdx.utils.Pool.Poolable;
+
+import danielhabib.sandbox.types.StatType;
+
+/**
+ * Timed multipliers on an entity's stats, in parallel primitive arrays. The
+ * effective value of a stat is its base times every active factor on it.
+ * Modifiers added here before the entity joins the engine start counting
+ * from then; on a live entity use ModifierSystem#add.
+ */
+public class ModifierComponent implements Component, Poolable {
+	/** Velocity without the modifiers, taken when they start; then set with ModifierSystem#setVelocity. */
+	public final Vector2 baseVelocity = new Vector2();
+	/** Product of the factors the stat is scaled by right now, 1 for none. */
+	public final float[] applied = new float[StatType.COUNT];
+	/** Whether the modifiers were scheduled and applied yet. */
+	public boolean started;
+
+	public int size;
+	/** {@link StatType} ordinals. */
+	public int[] stats = new int[4];
+	public float[] factors = new float[4];
+	public float[] durations = new float[4];
+	/** Tick the modifier expires on, -1 until it is scheduled. */
+	public long[] deadlines = new long[4];
+
+	public ModifierComponent() {
+		reset();
+	}
+
+	public int add(StatType stat, float factor, float duration) {
+		if (size == stats.length) {
+			grow();
+		}
+		stats[size] = stat.ordinal();
+		factors[size] = factor;
+		durations[size] = duration;
+		deadlines[size] = -1;
+		return size++;
+	}
+
+	/** Swaps the last modifier into {@code index}. */
+	public void remove(int index) {
+		int last = --size;
+		stats[index] = stats[last];
+		factors[index] = factors[last];
+		durations[index] = durations[last];
+		deadlines[index] = deadlines[last];
+	}
+
+	/** Product of the active factors on the stat. */
+	public float factor(StatType stat) {
+		int ordinal = stat.ordinal();
+		float product = 1;
+		for (int i = 0; i < size; i++) {
+			if (stats[i] == ordinal) {
+				product *= factors[i];
+			}
+		}
+		return product;
+	}
+
+	@Override
+	public void reset() {
+		size = 0;
+		started = false;
+		baseVelocity.setZero();
+		for (int i = 0; i < applied.length; i++) {
+			applied[i] = 1;
+		}
+	}
+
+	private void grow() {
+		int capacity = stats.length * 2;
+		int[] stats = new int[capacity];
+		float[] factors = new float[capacity];
+		float[] durations = new float[capacity];
+		long[] deadlines = new long[capacity];
+		System.arraycopy(this.stats, 0, stats, 0, size);
+		System.arraycopy(this.factors, 0, factors, 0, size);
+		System.arraycopy(this.durations, 0, durations, 0, size);
+		System.arraycopy(this.deadlines, 0, deadlines, 0, size);
+		this.stats = stats;
+		this.factors = factors;
+		this.durations = durations;
+		this.deadlines = deadlines;
+	}
+}
@@ -1,13 +1,162 @@
 package danielhabib.sandbox.components;
 
 import com.badlogic.ashley.core.Component;
-import com.badlogic.ashley.core.Entity;
-import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.Pool.Poolable;
 
-public class SnakeComponent implements Component {
+import danielhabib.factory.Parameters;
+
+/**
+ * A snake on the tile grid: the cells of its body in a ring of primitive
+ * arrays. A step writes the new head cell and lets the tail go, growing
+ * keeps the tail, shrinking drops cells off the tail and turning around
+ * swaps which end is the head. None of it touches the cells in between, so
+ * a long snake costs what a short one does. Moved by SnakeMovementSystem.
+ */
+public class SnakeComponent implements Component, Poolable {
 
 	public static final int STATE_MOVING = 0;
 	public static final int STATE_REVERTING = 1;
 	public static final int STATE_STOP = 2;
-	public Array<Entity> parts;
+
+	/** Cells per second. */
+	public float speed = Parameters.SPEED;
+	public int dirX = 1;
+	public int dirY;
+	/** Turn taken on the next step, if it does not lead into the neck. */
+	public int turnX;
+	public int turnY;
+	/** Share of the way to the next cell. */
+	public float progress;
+	/** Steps left that keep the tail. */
+	public int growth;
+
+	/** Cells from index {@link #first} on, wrapping; capacity is a power of two. */
+	private int[] xs = new int[16];
+	private int[] ys = new int[16];
+	private int first;
+	private int length;
+	/** Head at the last cell instead of the first. */
+	private boolean reversed;
+
+	/** Puts a one cell snake at (x, y), to grow to {@code length} cells as it moves. */
+	public void place(int x, int y, int length) {
+		first = 0;
+		this.length = 1;
+		reversed = false;
+		xs[0] = x;
+		ys[0] = y;
+		growth = Math.max(0, length - 1);
+		progress = 0;
+	}
+
+	public int getLength() {
+		return length;
+	}
+
+	/** Column of the cell {@code i} cells behind the head. */
+	public int getX(int i) {
+		return xs[index(i)];
+	}
+
+	public int getY(int i) {
+		return ys[index(i)];
+	}
+
+	public int getHeadX() {
+		return xs[index(0)];
+	}
+
+	public int getHeadY() {
+		return ys[index(0)];
+	}
+
+	/** Moves the head to (x, y), keeping the tail while growing. */
+	public void step(int x, int y) {
+		int mask = xs.length - 1;
+		boolean grow = growth > 0;
+		if (grow) {
+			growth--;
+			if (length == xs.length) {
+				expand();
+				mask = xs.length - 1;
+			}
+		}
+		int head;
+		if (reversed) {
+			if (grow) {
+				length++;
+			} else {
+				first = (first + 1) & mask;
+			}
+			head = (first + length - 1) & mask;
+		} else {
+			// a full ring writes over the tail, which is let go anyway
+			first = (first - 1) & mask;
+			head = first;
+			if (grow) {
+				length++;
+			}
+		}
+		xs[head] = x;
+		ys[head] = y;
+	}
+
+	/** Drops up to {@code cells} cells off the tail, keeping the head. */
+	public void shrink(int cells) {
+		cells = Math.min(cells, length - 1);
+		if (cells <= 0) {
+			return;
+		}
+		if (reversed) {
+			first = (first + cells) & (xs.length - 1);
+		}
+		length -= cells;
+	}
+
+	/** Makes the tail the head, heading away from the rest of the body. */
+	public void reverse() {
+		reversed = !reversed;
+		if (length > 1) {
+			dirX = getX(0) - getX(1);
+			dirY = getY(0) - getY(1);
+		} else {
+			dirX = -dirX;
+			dirY = -dirY;
+		}
+		turnX = turnY = 0;
+		progress = 0;
+	}
+
+	@Override
+	public void reset() {
+		speed = Parameters.SPEED;
+		dirX = 1;
+		dirY = 0;
+		turnX = turnY = 0;
+		progress = 0;
+		growth = 0;
+		first = 0;
+		length = 0;
+		reversed = false;
+	}
+
+	private int index(int i) {
+		return (reversed ? first + length - 1 - i : first + i) & (xs.length - 1);
+	}
+
+	/** Doubles the ring, cells back in order from index 0. */
+	private void expand() {
+		int capacity = xs.length;
+		int[] xs = new int[capacity * 2];
+		int[] ys = new int[capacity * 2];
+		int start = first;
+		int head = capacity - start;
+		System.arraycopy(this.xs, start, xs, 0, head);
+		System.arraycopy(this.ys, start, ys, 0, head);
+		System.arraycopy(this.xs, 0, xs, head, start);
+		System.arraycopy(this.ys, 0, ys, head, start);
+		this.xs = xs;
+		this.ys = ys;
+		first = 0;
+	}
 }
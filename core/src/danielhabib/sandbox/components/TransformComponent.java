@@ -8,4 +8,6 @@ public class TransformComponent implements Component {
 	public final Vector3 pos = new Vector3();
 	public final Vector2 scale = new Vector2(1.0f, 1.0f);
 	public float rotation = 0.0f;
+	public final Vector3 previousPos = new Vector3();
+	public float previousRotation = 0.0f;
 }
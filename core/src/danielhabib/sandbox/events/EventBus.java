@@ -0,0 +1,111 @@
+package danielhabib.sandbox.events;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.Pool;
+import com.badlogic.gdx.utils.Pool.Poolable;
+import com.badlogic.gdx.utils.ReflectionPool;
+
+/**
+ * Gameplay events, queued per type and handed to the listeners of their type
+ * a batch at a time by {@link #flush}. Events are pooled: {@link #post} gives
+ * out a recycled one to fill in and the flush frees it again, so listeners
+ * must not keep them. Posting is safe from any thread; flushing is for the
+ * engine thread, at points where no system is running.
+ */
+public class EventBus {
+	/** Events posted by listeners are delivered in the same flush, up to this many rounds. */
+	private static final int MAX_ROUNDS = 8;
+
+	public interface Listener<T> {
+		/** The events of a type posted since the last flush, in posting order. */
+		public void handle(Array<T> events);
+	}
+
+	private final ObjectMap<Class<?>, Queue<?>> queues = new ObjectMap<Class<?>, Queue<?>>();
+	private final Array<Queue<?>> order = new Array<Queue<?>>();
+
+	public synchronized <T extends Poolable> void subscribe(Class<T> type, Listener<T> listener) {
+		queue(type).listeners.add(listener);
+	}
+
+	public synchronized <T extends Poolable> void unsubscribe(Class<T> type, Listener<T> listener) {
+		queue(type).listeners.removeValue(listener, true);
+	}
+
+	/** A cleared event of the type, already queued: fill it in right away. */
+	public synchronized <T extends Poolable> T post(Class<T> type) {
+		Queue<T> queue = queue(type);
+		T event = queue.pool.obtain();
+		queue.queued.add(event);
+		return event;
+	}
+
+	/** Hands every queued event to its listeners, type by type, then frees it. */
+	public void flush() {
+		for (int round = 0; round < MAX_ROUNDS; round++) {
+			boolean delivered = false;
+			for (int i = 0; i < order.size; i++) {
+				delivered |= order.get(i).deliver(this);
+			}
+			if (!delivered) {
+				return;
+			}
+		}
+	}
+
+	/** Drops every queued event without delivering it. */
+	public synchronized void clear() {
+		for (int i = 0; i < order.size; i++) {
+			Queue<?> queue = order.get(i);
+			queue.free(queue.queued);
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private <T extends Poolable> Queue<T> queue(Class<T> type) {
+		Queue<T> queue = (Queue<T>) queues.get(type);
+		if (queue == null) {
+			queue = new Queue<T>(new ReflectionPool<T>(type));
+			queues.put(type, queue);
+			order.add(queue);
+		}
+		return queue;
+	}
+
+	private static class Queue<T> {
+		final Pool<T> pool;
+		final Array<Listener<T>> listeners = new Array<Listener<T>>();
+		Array<T> queued = new Array<T>(false, 16);
+		/** Being delivered; swapped with queued, so listeners may post more. */
+		Array<T> batch = new Array<T>(false, 16);
+
+		Queue(Pool<T> pool) {
+			this.pool = pool;
+		}
+
+		boolean deliver(EventBus bus) {
+			synchronized (bus) {
+				if (queued.size == 0) {
+					return false;
+				}
+				Array<T> swap = batch;
+				batch = queued;
+				queued = swap;
+			}
+			for (int i = 0; i < listeners.size; i++) {
+				listeners.get(i).handle(batch);
+			}
+			synchronized (bus) {
+				free(batch);
+			}
+			return true;
+		}
+
+		@SuppressWarnings("unchecked")
+		void free(Array<?> events) {
+			pool.freeAll((Array<T>) events);
+			events.clear();
+		}
+	}
+}
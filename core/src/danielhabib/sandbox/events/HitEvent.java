@@ -0,0 +1,25 @@
+package danielhabib.sandbox.events;
+
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.gdx.utils.Pool.Poolable;
+
+import danielhabib.sandbox.components.GeneralCallback;
+import danielhabib.sandbox.types.PlatformType;
+
+/** An entity ran into a platform. */
+public class HitEvent implements Poolable {
+	public Entity entity;
+	/** Null for a static wall tile, which is no entity. */
+	public Entity platform;
+	public PlatformType type;
+	/** The platform's callback, as it was on the hit; null for a wall. */
+	public GeneralCallback callback;
+
+	@Override
+	public void reset() {
+		entity = null;
+		platform = null;
+		type = null;
+		callback = null;
+	}
+}
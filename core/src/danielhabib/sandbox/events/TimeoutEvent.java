@@ -0,0 +1,18 @@
+package danielhabib.sandbox.events;
+
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.gdx.utils.Pool.Poolable;
+
+import danielhabib.sandbox.components.GeneralCallback;
+
+/** The timeout of an entity passed; its TimeoutComponent is gone already. */
+public class TimeoutEvent implements Poolable {
+	public Entity entity;
+	public GeneralCallback callback;
+
+	@Override
+	public void reset() {
+		entity = null;
+		callback = null;
+	}
+}
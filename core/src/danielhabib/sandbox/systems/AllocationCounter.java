@@ -0,0 +1,20 @@
+package danielhabib.sandbox.systems;
+
+/**
+ * Bytes allocated by the calling thread, where the platform can count them.
+ * Core cannot, portably; launchers that can hand one to the game. Reading it
+ * must allocate nothing, so it can bracket code that should not allocate
+ * either.
+ */
+public interface AllocationCounter {
+	/** Counts nothing, where the platform does not tell. */
+	AllocationCounter NONE = new AllocationCounter() {
+		@Override
+		public long get() {
+			return -1;
+		}
+	};
+
+	/** Bytes the calling thread allocated so far, -1 when unknown. */
+	long get();
+}
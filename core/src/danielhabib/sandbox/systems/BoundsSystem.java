@@ -19,12 +19,11 @@ package danielhabib.sandbox.systems;
 import com.badlogic.ashley.core.ComponentMapper;
 import com.badlogic.ashley.core.Entity;
 import com.badlogic.ashley.core.Family;
-import com.badlogic.ashley.systems.IteratingSystem;
 
 import danielhabib.sandbox.components.BoundsComponent;
 import danielhabib.sandbox.components.TransformComponent;
 
-public class BoundsSystem extends IteratingSystem {
+public class BoundsSystem extends ParallelIteratingSystem<Void> implements ScheduledSystem {
 
 	private ComponentMapper<TransformComponent> tm;
 	private ComponentMapper<BoundsComponent> bm;
@@ -37,11 +36,21 @@ public class BoundsSystem extends IteratingSystem {
 	}
 
 	@Override
-	public void processEntity(Entity entity, float deltaTime) {
+	protected Void createScratch() {
+		return null;
+	}
+
+	@Override
+	protected void processEntity(Entity entity, float deltaTime, Void scratch) {
 		TransformComponent pos = tm.get(entity);
 		BoundsComponent bounds = bm.get(entity);
 
 		bounds.bounds.x = pos.pos.x - bounds.bounds.width * 0.5f;
 		bounds.bounds.y = pos.pos.y - bounds.bounds.height * 0.5f;
 	}
+
+	@Override
+	public void declareAccess(SystemAccess access) {
+		access.read(TransformComponent.class).write(BoundsComponent.class);
+	}
 }
@@ -0,0 +1,55 @@
+package danielhabib.sandbox.systems;
+
+import com.badlogic.ashley.core.Engine;
+import com.badlogic.ashley.core.EntitySystem;
+
+import danielhabib.sandbox.components.BoundsComponent;
+import danielhabib.sandbox.components.MovementComponent;
+import danielhabib.sandbox.components.RotationComponent;
+import danielhabib.sandbox.components.TransformComponent;
+
+/**
+ * Does the work of {@link MovementSystem}, {@link RotationSystem} and
+ * {@link BoundsSystem} in one go, as tight loops over a {@link PhysicsStore},
+ * then publishes the result to the components. Use it instead of those three,
+ * not next to them.
+ */
+public class DensePhysicsSystem extends EntitySystem implements ScheduledSystem {
+	private final PhysicsStore store;
+
+	public DensePhysicsSystem() {
+		this(new PhysicsStore());
+	}
+
+	public DensePhysicsSystem(PhysicsStore store) {
+		this.store = store;
+	}
+
+	@Override
+	public void addedToEngine(Engine engine) {
+		store.attach(engine);
+	}
+
+	@Override
+	public void removedFromEngine(Engine engine) {
+		store.detach(engine);
+	}
+
+	@Override
+	public void update(float deltaTime) {
+		store.sync();
+		store.integrate(deltaTime);
+		store.rotate();
+		store.publish();
+	}
+
+	public PhysicsStore getStore() {
+		return store;
+	}
+
+	@Override
+	public void declareAccess(SystemAccess access) {
+		access.read(RotationComponent.class).write(TransformComponent.class, MovementComponent.class,
+				BoundsComponent.class);
+	}
+}
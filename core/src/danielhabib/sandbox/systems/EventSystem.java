@@ -0,0 +1,60 @@
+package danielhabib.sandbox.systems;
+
+import com.badlogic.ashley.core.EntitySystem;
+import com.badlogic.gdx.utils.Array;
+
+import danielhabib.sandbox.components.GeneralCallback;
+import danielhabib.sandbox.events.EventBus;
+import danielhabib.sandbox.events.HitEvent;
+import danielhabib.sandbox.events.TimeoutEvent;
+
+/**
+ * Flushes an {@link EventBus} at the end of every tick, once the gameplay
+ * systems are done, so listeners get a tick's events in one batch and never
+ * run in the middle of an iteration. The callbacks of platforms and
+ * timeouts run there too, before any other listener of their event.
+ *
+ * Runs on the engine thread: add it to the engine, not to a
+ * {@link SystemScheduler}.
+ */
+public class EventSystem extends EntitySystem {
+	private final EventBus bus;
+
+	private final EventBus.Listener<HitEvent> hitCallbacks = new EventBus.Listener<HitEvent>() {
+		@Override
+		public void handle(Array<HitEvent> events) {
+			for (int i = 0; i < events.size; i++) {
+				GeneralCallback callback = events.get(i).callback;
+				if (callback != null) {
+					callback.execute();
+				}
+			}
+		}
+	};
+
+	private final EventBus.Listener<TimeoutEvent> timeoutCallbacks = new EventBus.Listener<TimeoutEvent>() {
+		@Override
+		public void handle(Array<TimeoutEvent> events) {
+			for (int i = 0; i < events.size; i++) {
+				events.get(i).callback.execute();
+			}
+		}
+	};
+
+	public EventSystem(EventBus bus) {
+		// after everything but snapshots, which should see what the events did
+		super(Integer.MAX_VALUE - 1);
+		this.bus = bus;
+		bus.subscribe(HitEvent.class, hitCallbacks);
+		bus.subscribe(TimeoutEvent.class, timeoutCallbacks);
+	}
+
+	public EventBus getBus() {
+		return bus;
+	}
+
+	@Override
+	public void update(float deltaTime) {
+		bus.flush();
+	}
+}
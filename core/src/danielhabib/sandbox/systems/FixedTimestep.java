@@ -0,0 +1,59 @@
+package danielhabib.sandbox.systems;
+
+import com.badlogic.ashley.core.Engine;
+
+/**
+ * Runs the engine at a fixed tick rate whatever the frame rate is. Frame
+ * time piles up in an accumulator and is spent in whole ticks; at most
+ * {@code maxSteps} ticks run per frame, the rest of a slow frame is dropped
+ * instead of being simulated in one huge step. {@link #getAlpha()} is how far
+ * the frame is between the last two ticks, for {@link RenderingSystem} to
+ * interpolate with.
+ */
+public class FixedTimestep {
+	private final Engine engine;
+	private final float step;
+	private final int maxSteps;
+	private float accumulator;
+	private long ticks;
+
+	public FixedTimestep(Engine engine, float tickRate, int maxSteps) {
+		this.engine = engine;
+		this.step = 1f / tickRate;
+		this.maxSteps = maxSteps;
+	}
+
+	/** Returns how many ticks ran. */
+	public int update(float delta) {
+		accumulator += delta;
+		float max = step * maxSteps;
+		if (accumulator > max) {
+			accumulator = max;
+		}
+		int steps = 0;
+		while (accumulator >= step) {
+			tick();
+			accumulator -= step;
+			steps++;
+		}
+		return steps;
+	}
+
+	/** Runs a single tick, leaving the accumulator alone. */
+	public void tick() {
+		engine.update(step);
+		ticks++;
+	}
+
+	public float getAlpha() {
+		return accumulator / step;
+	}
+
+	public float getStep() {
+		return step;
+	}
+
+	public long getTicks() {
+		return ticks;
+	}
+}
@@ -0,0 +1,102 @@
+package danielhabib.sandbox.systems;
+
+import com.badlogic.ashley.core.EntitySystem;
+import com.badlogic.gdx.utils.Bits;
+import com.badlogic.gdx.utils.IntArray;
+
+import danielhabib.sandbox.Replay;
+
+/**
+ * The keys the simulation sees, changed only at the start of a tick so that
+ * a tick gives the same result whatever frame its input came in. Key events
+ * are queued by the screen with {@link #keyDown}/{@link #keyUp} and applied by
+ * the next tick; while a {@link Replay} plays, its events are applied instead
+ * and the queued ones are ignored.
+ */
+public class InputSystem extends EntitySystem implements ScheduledSystem {
+	private final Bits down = new Bits();
+	private final Bits pressed = new Bits();
+	/** key, then 1 for down or 0 for up */
+	private final IntArray queued = new IntArray();
+	private Replay recording;
+	private Replay playing;
+	private long tick;
+
+	public InputSystem() {
+		// before anything reads the keys
+		super(Integer.MIN_VALUE);
+	}
+
+	public void keyDown(int key) {
+		queued.add(key);
+		queued.add(1);
+	}
+
+	public void keyUp(int key) {
+		queued.add(key);
+		queued.add(0);
+	}
+
+	/** Whether the key is held this tick. */
+	public boolean isDown(int key) {
+		return down.get(key);
+	}
+
+	/** Whether the key went down at the start of this tick. */
+	public boolean isJustPressed(int key) {
+		return pressed.get(key);
+	}
+
+	/** Appends every event applied from now on to the replay, or stops when null. */
+	public void record(Replay replay) {
+		recording = replay;
+	}
+
+	/** Applies the events of the replay from now on instead of the queued ones, or stops when null. */
+	public void play(Replay replay) {
+		playing = replay;
+		if (replay != null) {
+			replay.rewind();
+		}
+	}
+
+	/** Ticks run since the system was added. */
+	public long getTick() {
+		return tick;
+	}
+
+	@Override
+	public void update(float deltaTime) {
+		pressed.clear();
+		if (playing != null) {
+			queued.clear();
+			playing.poll(tick, this);
+		} else {
+			for (int i = 0; i < queued.size; i += 2) {
+				apply(queued.get(i), queued.get(i + 1) != 0);
+			}
+			queued.clear();
+		}
+		tick++;
+	}
+
+	/** Applies an event to this tick. */
+	public void apply(int key, boolean isDown) {
+		if (isDown) {
+			if (!down.getAndSet(key)) {
+				pressed.set(key);
+			}
+		} else {
+			down.clear(key);
+		}
+		if (recording != null) {
+			recording.add(tick, key, isDown);
+		}
+	}
+
+	@Override
+	public void declareAccess(SystemAccess access) {
+		// touches no component; systems reading the keys run after it by priority
+		access.exclusive();
+	}
+}
@@ -0,0 +1,286 @@
+package danielhabib.sandbox.systems;
+
+import com.badlogic.ashley.core.ComponentMapper;
+import com.badlogic.ashley.core.Engine;
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.EntityListener;
+import com.badlogic.ashley.core.EntitySystem;
+import com.badlogic.ashley.core.Family;
+import com.badlogic.ashley.core.PooledEngine;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+
+import danielhabib.factory.Parameters;
+import danielhabib.sandbox.components.ModifierComponent;
+import danielhabib.sandbox.components.MovementComponent;
+import danielhabib.sandbox.types.StatType;
+
+/**
+ * Applies and expires the timed stat multipliers of {@link ModifierComponent}s.
+ * Every change recomputes the stat from its base, so nothing drifts however
+ * many modifiers come and go, and a factor of 0 gives the speed back when it
+ * expires. Gameplay sets the speed of a modified entity with
+ * {@link #setVelocity}; what it writes straight into the velocity is lost on
+ * the next change. Deadlines sit in a {@link TimingWheel}: a tick only costs
+ * something for the modifiers that expire on it.
+ */
+public class ModifierSystem extends EntitySystem implements EntityListener, ScheduledSystem {
+	private static final Family family = Family.all(ModifierComponent.class).get();
+	private static final StatType[] STATS = StatType.values();
+
+	private final TimingWheel<Entity> wheel = new TimingWheel<Entity>();
+	private final Array<Entity> expired = new Array<Entity>(false, 16);
+	private final Array<Entity> pending = new Array<Entity>(false, 16);
+	/** Timers of each entity, cancelled when it leaves; the arrays are reused. */
+	private final ObjectMap<Entity, Array<TimingWheel.Timer<Entity>>> timers
+			= new ObjectMap<Entity, Array<TimingWheel.Timer<Entity>>>();
+	private final Array<Array<TimingWheel.Timer<Entity>>> freeTimers
+			= new Array<Array<TimingWheel.Timer<Entity>>>(false, 16);
+	private final float step;
+	private float accumulator;
+	private DensePhysicsSystem physics;
+
+	private ComponentMapper<ModifierComponent> modm = ComponentMapper.getFor(ModifierComponent.class);
+	private ComponentMapper<MovementComponent> mm = ComponentMapper.getFor(MovementComponent.class);
+
+	public ModifierSystem() {
+		this(1 / Parameters.TICK_RATE);
+	}
+
+	/** @param step seconds per turn of the wheel's finest slot */
+	public ModifierSystem(float step) {
+		this.step = step;
+	}
+
+	@Override
+	public void addedToEngine(Engine engine) {
+		for (Entity entity : engine.getEntitiesFor(family)) {
+			entityAdded(entity);
+		}
+		engine.addEntityListener(family, this);
+	}
+
+	@Override
+	public void removedFromEngine(Engine engine) {
+		engine.removeEntityListener(this);
+		wheel.clear();
+		pending.clear();
+		for (Array<TimingWheel.Timer<Entity>> entityTimers : timers.values()) {
+			entityTimers.clear();
+			freeTimers.add(entityTimers);
+		}
+		timers.clear();
+	}
+
+	@Override
+	public void entityAdded(Entity entity) {
+		// started on the next update, once the components are filled in
+		pending.add(entity);
+	}
+
+	@Override
+	public void entityRemoved(Entity entity) {
+		pending.removeValue(entity, true);
+		Array<TimingWheel.Timer<Entity>> entityTimers = timers.remove(entity);
+		if (entityTimers != null) {
+			cancel(entityTimers);
+			freeTimers.add(entityTimers);
+		}
+	}
+
+	/**
+	 * Multiplies the stat by {@code factor} for {@code duration} seconds,
+	 * adding a {@link ModifierComponent} if the entity has none.
+	 */
+	public void add(Entity entity, StatType stat, float factor, float duration) {
+		ModifierComponent modifiers = modm.get(entity);
+		if (modifiers == null) {
+			Engine engine = getEngine();
+			modifiers = engine instanceof PooledEngine
+					? ((PooledEngine) engine).createComponent(ModifierComponent.class) : new ModifierComponent();
+			entity.add(modifiers);
+		}
+		int index = modifiers.add(stat, factor, duration);
+		if (modifiers.started) {
+			schedule(entity, modifiers, index);
+			apply(entity, modifiers, stat);
+		}
+	}
+
+	/** Sets the velocity before the modifiers, and the velocity they make of it. */
+	public void setVelocity(Entity entity, float x, float y) {
+		MovementComponent movement = mm.get(entity);
+		if (movement == null) {
+			return;
+		}
+		ModifierComponent modifiers = modm.get(entity);
+		movement.velocity.set(x, y);
+		if (modifiers != null && modifiers.started) {
+			modifiers.baseVelocity.set(x, y);
+			movement.velocity.scl(modifiers.applied[StatType.SPEED.ordinal()]);
+		}
+		if (physics != null) {
+			physics.getStore().pull(entity);
+		}
+	}
+
+	@Override
+	public void update(float deltaTime) {
+		physics = getEngine().getSystem(DensePhysicsSystem.class);
+
+		for (int i = 0; i < pending.size; i++) {
+			start(pending.get(i));
+		}
+		pending.clear();
+
+		accumulator += deltaTime;
+		while (accumulator >= step) {
+			accumulator -= step;
+			wheel.advance(expired);
+			for (int i = 0; i < expired.size; i++) {
+				expire(expired.get(i));
+			}
+			expired.clear();
+		}
+	}
+
+	/** Ticks until the modifier at {@code index} expires, from its duration if not started yet. */
+	public long getRemainingTicks(ModifierComponent modifiers, int index) {
+		long deadline = modifiers.deadlines[index];
+		return deadline < 0 ? Math.round((double) modifiers.durations[index] / step) : deadline - wheel.getNow();
+	}
+
+	/** Seconds per tick of the modifiers' timers. */
+	public float getStep() {
+		return step;
+	}
+
+	/**
+	 * Applies modifiers written straight into the component, e.g. to rewind
+	 * them: each one with a deadline of -1 is scheduled from its duration,
+	 * the others keep theirs. Timers from before are cancelled. A component
+	 * not started yet takes its base from the velocity.
+	 */
+	public void restart(Entity entity) {
+		Array<TimingWheel.Timer<Entity>> entityTimers = timers.get(entity);
+		if (entityTimers != null) {
+			cancel(entityTimers);
+		}
+		ModifierComponent modifiers = modm.get(entity);
+		if (modifiers != null) {
+			for (int i = 0; i < modifiers.size; i++) {
+				if (modifiers.deadlines[i] >= 0) {
+					timers(entity).add(wheel.schedule(entity, modifiers.deadlines[i] - wheel.getNow()));
+				}
+			}
+		}
+		start(entity);
+	}
+
+	/** Modifiers still waiting to expire. */
+	public int getActiveCount() {
+		return wheel.size();
+	}
+
+	@Override
+	public void declareAccess(SystemAccess access) {
+		access.write(ModifierComponent.class, MovementComponent.class).structural();
+	}
+
+	private void start(Entity entity) {
+		ModifierComponent modifiers = modm.get(entity);
+		if (modifiers == null) {
+			return;
+		}
+		if (!modifiers.started) {
+			MovementComponent movement = mm.get(entity);
+			if (movement != null) {
+				modifiers.baseVelocity.set(movement.velocity);
+			}
+			modifiers.started = true;
+		}
+		for (int i = 0; i < modifiers.size; i++) {
+			if (modifiers.deadlines[i] < 0) {
+				schedule(entity, modifiers, i);
+			}
+		}
+		for (StatType stat : STATS) {
+			apply(entity, modifiers, stat);
+		}
+	}
+
+	private void schedule(Entity entity, ModifierComponent modifiers, int index) {
+		// lasts the whole duration, like when elapsed time was compared with >=
+		long ticks = Math.round((double) modifiers.durations[index] / step);
+		TimingWheel.Timer<Entity> timer = wheel.schedule(entity, ticks);
+		timers(entity).add(timer);
+		modifiers.deadlines[index] = timer.getDeadline();
+	}
+
+	private Array<TimingWheel.Timer<Entity>> timers(Entity entity) {
+		Array<TimingWheel.Timer<Entity>> entityTimers = timers.get(entity);
+		if (entityTimers == null) {
+			entityTimers = freeTimers.size > 0 ? freeTimers.pop() : new Array<TimingWheel.Timer<Entity>>(false, 4);
+			timers.put(entity, entityTimers);
+		}
+		return entityTimers;
+	}
+
+	private void cancel(Array<TimingWheel.Timer<Entity>> entityTimers) {
+		for (int i = 0; i < entityTimers.size; i++) {
+			wheel.cancel(entityTimers.get(i));
+		}
+		entityTimers.clear();
+	}
+
+	/** Drops every modifier of the entity that is due, and the timers that fired. */
+	private void expire(Entity entity) {
+		Array<TimingWheel.Timer<Entity>> entityTimers = timers.get(entity);
+		if (entityTimers != null) {
+			// fired timers go back to the wheel's free list before anything is scheduled again
+			for (int i = entityTimers.size - 1; i >= 0; i--) {
+				if (!entityTimers.get(i).isScheduled()) {
+					entityTimers.removeIndex(i);
+				}
+			}
+		}
+		ModifierComponent modifiers = modm.get(entity);
+		if (modifiers == null || !modifiers.started) {
+			return;
+		}
+		long now = wheel.getNow();
+		int touched = 0;
+		// backwards, so the swapped in modifier was already looked at
+		for (int i = modifiers.size - 1; i >= 0; i--) {
+			long deadline = modifiers.deadlines[i];
+			if (deadline >= 0 && deadline <= now) {
+				touched |= 1 << modifiers.stats[i];
+				modifiers.remove(i);
+			}
+		}
+		for (StatType stat : STATS) {
+			if ((touched & (1 << stat.ordinal())) != 0) {
+				apply(entity, modifiers, stat);
+			}
+		}
+	}
+
+	private void apply(Entity entity, ModifierComponent modifiers, StatType stat) {
+		float factor = modifiers.factor(stat);
+		if (factor == modifiers.applied[stat.ordinal()]) {
+			return;
+		}
+		modifiers.applied[stat.ordinal()] = factor;
+		switch (stat) {
+		case SPEED:
+			MovementComponent movement = mm.get(entity);
+			if (movement != null) {
+				movement.velocity.set(modifiers.baseVelocity).scl(factor);
+				if (physics != null) {
+					physics.getStore().pull(entity);
+				}
+			}
+			break;
+		}
+	}
+}
@@ -3,15 +3,12 @@ package danielhabib.sandbox.systems;
 import com.badlogic.ashley.core.ComponentMapper;
 import com.badlogic.ashley.core.Entity;
 import com.badlogic.ashley.core.Family;
-import com.badlogic.ashley.systems.IteratingSystem;
 import com.badlogic.gdx.math.Vector2;
 
 import danielhabib.sandbox.components.MovementComponent;
 import danielhabib.sandbox.components.TransformComponent;
 
-public class MovementSystem extends IteratingSystem {
-	private Vector2 tmp = new Vector2();
-
+public class MovementSystem extends ParallelIteratingSystem<Vector2> implements ScheduledSystem {
 	private ComponentMapper<TransformComponent> tm;
 	private ComponentMapper<MovementComponent> mm;
 
@@ -23,7 +20,12 @@ public class MovementSystem extends IteratingSystem {
 	}
 
 	@Override
-	public void processEntity(Entity entity, float deltaTime) {
+	protected Vector2 createScratch() {
+		return new Vector2();
+	}
+
+	@Override
+	protected void processEntity(Entity entity, float deltaTime, Vector2 tmp) {
 		TransformComponent pos = tm.get(entity);
 		MovementComponent mov = mm.get(entity);
 
@@ -33,4 +35,9 @@ public class MovementSystem extends IteratingSystem {
 		tmp.set(mov.velocity).scl(deltaTime);
 		pos.pos.add(tmp.x, tmp.y, 0.0f);
 	}
-}
\ No newline at end of file
+
+	@Override
+	public void declareAccess(SystemAccess access) {
+		access.write(MovementComponent.class, TransformComponent.class);
+	}
+}
@@ -0,0 +1,156 @@
+package danielhabib.sandbox.systems;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.Family;
+import com.badlogic.ashley.systems.IteratingSystem;
+import com.badlogic.ashley.utils.ImmutableArray;
+
+/**
+ * An {@link IteratingSystem} that splits its entities in chunks and processes
+ * them on a {@link ForkJoinPool}. Every chunk has its own scratch object from
+ * {@link #createScratch()}, so temporaries are never shared between threads.
+ * Below the threshold, or with a single core, entities are processed
+ * serially on the calling thread.
+ *
+ * The pool and chunks are made on the first parallel update: Android before
+ * API 21 has no fork/join classes, and the serial path never loads them.
+ *
+ * Processing an entity may only touch that entity's components.
+ */
+public abstract class ParallelIteratingSystem<S> extends IteratingSystem {
+	public static final int DEFAULT_THRESHOLD = 4096;
+
+	private static final int CORES = Runtime.getRuntime().availableProcessors();
+	private final S scratch;
+	private Parallel<S> parallel;
+	private int threshold = DEFAULT_THRESHOLD;
+	private ImmutableArray<Entity> entities;
+	private float deltaTime;
+
+	public ParallelIteratingSystem(Family family) {
+		this(family, 0);
+	}
+
+	public ParallelIteratingSystem(Family family, int priority) {
+		super(family, priority);
+		scratch = createScratch();
+	}
+
+	/** Temporaries for one thread: called from the constructor, then once per chunk on going parallel. */
+	protected abstract S createScratch();
+
+	protected abstract void processEntity(Entity entity, float deltaTime, S scratch);
+
+	@Override
+	protected final void processEntity(Entity entity, float deltaTime) {
+		processEntity(entity, deltaTime, scratch);
+	}
+
+	@Override
+	public void update(float deltaTime) {
+		ImmutableArray<Entity> entities = getEntities();
+		if (entities.size() < threshold || CORES == 1) {
+			super.update(deltaTime);
+			return;
+		}
+		if (parallel == null) {
+			parallel = new Parallel<S>(this);
+		}
+		this.entities = entities;
+		this.deltaTime = deltaTime;
+		parallel.run();
+		this.entities = null;
+	}
+
+	/** Entity count from which processing goes parallel. */
+	public void setThreshold(int threshold) {
+		this.threshold = threshold;
+	}
+
+	public int getThreshold() {
+		return threshold;
+	}
+
+	/** Everything fork/join, so that it is only loaded when used. */
+	private static class Parallel<S> {
+		private static ForkJoinPool sharedPool;
+
+		final ForkJoinPool pool = sharedPool();
+		final Chunk<S>[] chunks;
+		final Fork<S> fork;
+
+		Parallel(ParallelIteratingSystem<S> system) {
+			// a few chunks per worker so a slow one does not hold up the others
+			chunks = newChunks(pool.getParallelism() * 4);
+			for (int i = 0; i < chunks.length; i++) {
+				chunks[i] = new Chunk<S>(system, system.createScratch());
+			}
+			fork = new Fork<S>(system, chunks);
+		}
+
+		private static synchronized ForkJoinPool sharedPool() {
+			if (sharedPool == null) {
+				sharedPool = new ForkJoinPool();
+			}
+			return sharedPool;
+		}
+
+		@SuppressWarnings("unchecked")
+		private static <S> Chunk<S>[] newChunks(int size) {
+			return (Chunk<S>[]) new Chunk<?>[size];
+		}
+
+		void run() {
+			fork.reinitialize();
+			pool.invoke(fork);
+		}
+	}
+
+	@SuppressWarnings("serial")
+	private static class Fork<S> extends RecursiveAction {
+		final ParallelIteratingSystem<S> system;
+		final Chunk<S>[] chunks;
+
+		Fork(ParallelIteratingSystem<S> system, Chunk<S>[] chunks) {
+			this.system = system;
+			this.chunks = chunks;
+		}
+
+		@Override
+		protected void compute() {
+			int size = system.entities.size();
+			int step = (size + chunks.length - 1) / chunks.length;
+			for (int i = 0; i < chunks.length; i++) {
+				Chunk<S> chunk = chunks[i];
+				chunk.reinitialize();
+				chunk.start = Math.min(size, i * step);
+				chunk.end = Math.min(size, chunk.start + step);
+			}
+			invokeAll(chunks);
+		}
+	}
+
+	@SuppressWarnings("serial")
+	private static class Chunk<S> extends RecursiveAction {
+		final ParallelIteratingSystem<S> system;
+		final S scratch;
+		int start, end;
+
+		Chunk(ParallelIteratingSystem<S> system, S scratch) {
+			this.system = system;
+			this.scratch = scratch;
+		}
+
+		@Override
+		protected void compute() {
+			ImmutableArray<Entity> entities = system.entities;
+			float deltaTime = system.deltaTime;
+			for (int i = start; i < end; i++) {
+				system.processEntity(entities.get(i), deltaTime, scratch);
+			}
+		}
+	}
+}
@@ -0,0 +1,339 @@
+package danielhabib.sandbox.systems;
+
+import com.badlogic.ashley.core.ComponentMapper;
+import com.badlogic.ashley.core.Engine;
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.EntityListener;
+import com.badlogic.ashley.core.Family;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+import danielhabib.sandbox.components.BoundsComponent;
+import danielhabib.sandbox.components.MovementComponent;
+import danielhabib.sandbox.components.RotationComponent;
+import danielhabib.sandbox.components.TransformComponent;
+
+/**
+ * Position, velocity, acceleration, rotation and bounds of every physical
+ * entity packed in primitive columns indexed by a compact slot. The columns
+ * are the truth; {@link #publish()} copies them back to the components, which
+ * stay around as views for gameplay and rendering. Code that writes those
+ * components directly has to call {@link #pull(Entity)} afterwards, or use
+ * the setters here.
+ *
+ * Missing components are stored as zeros, so the loops need no branches: an
+ * entity without a movement has no velocity to integrate, one without a
+ * rotation spins by 0.
+ */
+public class PhysicsStore {
+	private static final int MOVING = 1;
+	private static final int ROTATING = 2;
+	private static final int BOUNDED = 4;
+
+	private static final Family moving = Family.all(TransformComponent.class, MovementComponent.class).get();
+	private static final Family rotating = Family.all(TransformComponent.class, RotationComponent.class).get();
+	private static final Family bounded = Family.all(TransformComponent.class, BoundsComponent.class).get();
+
+	private final ObjectIntMap<Entity> slots = new ObjectIntMap<Entity>();
+	private final Array<Entity> pending = new Array<Entity>(false, 16);
+	private int size;
+
+	private Entity[] entities;
+	private int[] flags;
+	private TransformComponent[] transforms;
+	private MovementComponent[] movements;
+	private BoundsComponent[] bounds;
+	private float[] x, y, vx, vy, ax, ay, rotation, spin, width, height;
+
+	private ComponentMapper<TransformComponent> tm = ComponentMapper.getFor(TransformComponent.class);
+	private ComponentMapper<MovementComponent> mm = ComponentMapper.getFor(MovementComponent.class);
+	private ComponentMapper<RotationComponent> rm = ComponentMapper.getFor(RotationComponent.class);
+	private ComponentMapper<BoundsComponent> bm = ComponentMapper.getFor(BoundsComponent.class);
+
+	private final EntityListener movingListener = new FlagListener(MOVING);
+	private final EntityListener rotatingListener = new FlagListener(ROTATING);
+	private final EntityListener boundedListener = new FlagListener(BOUNDED);
+
+	public PhysicsStore() {
+		this(64);
+	}
+
+	public PhysicsStore(int capacity) {
+		allocate(Math.max(1, capacity));
+	}
+
+	public void attach(Engine engine) {
+		for (Entity entity : engine.getEntitiesFor(moving)) {
+			movingListener.entityAdded(entity);
+		}
+		for (Entity entity : engine.getEntitiesFor(rotating)) {
+			rotatingListener.entityAdded(entity);
+		}
+		for (Entity entity : engine.getEntitiesFor(bounded)) {
+			boundedListener.entityAdded(entity);
+		}
+		engine.addEntityListener(moving, movingListener);
+		engine.addEntityListener(rotating, rotatingListener);
+		engine.addEntityListener(bounded, boundedListener);
+	}
+
+	public void detach(Engine engine) {
+		engine.removeEntityListener(movingListener);
+		engine.removeEntityListener(rotatingListener);
+		engine.removeEntityListener(boundedListener);
+		while (size > 0) {
+			release(size - 1);
+		}
+		pending.clear();
+	}
+
+	/**
+	 * Reads the components of entities that joined since the last call, so
+	 * fields set right after adding them are not lost.
+	 */
+	public void sync() {
+		for (int i = 0; i < pending.size; i++) {
+			pull(pending.get(i));
+		}
+		pending.clear();
+	}
+
+	/** velocity += accel * dt, position += velocity * dt. */
+	public void integrate(float deltaTime) {
+		float[] x = this.x, y = this.y, vx = this.vx, vy = this.vy, ax = this.ax, ay = this.ay;
+		for (int i = 0, n = size; i < n; i++) {
+			vx[i] += ax[i] * deltaTime;
+			vy[i] += ay[i] * deltaTime;
+			x[i] += vx[i] * deltaTime;
+			y[i] += vy[i] * deltaTime;
+		}
+	}
+
+	/** rotation += spin, once per tick like {@link RotationSystem}. */
+	public void rotate() {
+		float[] rotation = this.rotation, spin = this.spin;
+		for (int i = 0, n = size; i < n; i++) {
+			rotation[i] += spin[i];
+		}
+	}
+
+	/** Copies the columns back to the components. */
+	public void publish() {
+		for (int i = 0, n = size; i < n; i++) {
+			TransformComponent t = transforms[i];
+			t.pos.x = x[i];
+			t.pos.y = y[i];
+			t.rotation = rotation[i];
+			MovementComponent m = movements[i];
+			if (m != null) {
+				m.velocity.set(vx[i], vy[i]);
+			}
+			BoundsComponent b = bounds[i];
+			if (b != null) {
+				b.bounds.x = x[i] - width[i] * 0.5f;
+				b.bounds.y = y[i] - height[i] * 0.5f;
+			}
+		}
+	}
+
+	/** Re-reads the components of an entity that were written directly. */
+	public void pull(Entity entity) {
+		int slot = slots.get(entity, -1);
+		if (slot >= 0) {
+			read(slot);
+		}
+	}
+
+	public int slot(Entity entity) {
+		return slots.get(entity, -1);
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public Entity getEntity(int slot) {
+		return entities[slot];
+	}
+
+	public float getX(int slot) {
+		return x[slot];
+	}
+
+	public float getY(int slot) {
+		return y[slot];
+	}
+
+	public float getVelocityX(int slot) {
+		return vx[slot];
+	}
+
+	public float getVelocityY(int slot) {
+		return vy[slot];
+	}
+
+	public float getRotation(int slot) {
+		return rotation[slot];
+	}
+
+	public void setPosition(int slot, float x, float y) {
+		this.x[slot] = x;
+		this.y[slot] = y;
+	}
+
+	public void setVelocity(int slot, float vx, float vy) {
+		this.vx[slot] = vx;
+		this.vy[slot] = vy;
+	}
+
+	public void scaleVelocity(int slot, float factor) {
+		vx[slot] *= factor;
+		vy[slot] *= factor;
+	}
+
+	public void setAcceleration(int slot, float ax, float ay) {
+		this.ax[slot] = ax;
+		this.ay[slot] = ay;
+	}
+
+	private void read(int slot) {
+		TransformComponent t = transforms[slot];
+		x[slot] = t.pos.x;
+		y[slot] = t.pos.y;
+		rotation[slot] = t.rotation;
+		MovementComponent m = movements[slot];
+		vx[slot] = m == null ? 0 : m.velocity.x;
+		vy[slot] = m == null ? 0 : m.velocity.y;
+		ax[slot] = m == null ? 0 : m.accel.x;
+		ay[slot] = m == null ? 0 : m.accel.y;
+		RotationComponent r = (flags[slot] & ROTATING) != 0 ? rm.get(entities[slot]) : null;
+		spin[slot] = r == null ? 0 : r.rotation;
+		BoundsComponent b = bounds[slot];
+		width[slot] = b == null ? 0 : b.bounds.width;
+		height[slot] = b == null ? 0 : b.bounds.height;
+	}
+
+	private void flag(Entity entity, int flag) {
+		int slot = slots.get(entity, -1);
+		if (slot < 0) {
+			if (size == entities.length) {
+				grow();
+			}
+			slot = size++;
+			slots.put(entity, slot);
+			entities[slot] = entity;
+			transforms[slot] = tm.get(entity);
+			flags[slot] = 0;
+		}
+		flags[slot] |= flag;
+		movements[slot] = (flags[slot] & MOVING) != 0 ? mm.get(entity) : null;
+		bounds[slot] = (flags[slot] & BOUNDED) != 0 ? bm.get(entity) : null;
+		read(slot);
+		pending.add(entity);
+	}
+
+	private void unflag(Entity entity, int flag) {
+		int slot = slots.get(entity, -1);
+		if (slot < 0) {
+			return;
+		}
+		flags[slot] &= ~flag;
+		if (flags[slot] == 0) {
+			release(slot);
+			return;
+		}
+		if (flag == MOVING) {
+			movements[slot] = null;
+			vx[slot] = vy[slot] = ax[slot] = ay[slot] = 0;
+		} else if (flag == ROTATING) {
+			spin[slot] = 0;
+		} else {
+			bounds[slot] = null;
+			width[slot] = height[slot] = 0;
+		}
+	}
+
+	/** Moves the last slot into the freed one to keep the columns dense. */
+	private void release(int slot) {
+		int last = --size;
+		slots.remove(entities[slot], -1);
+		if (slot != last) {
+			entities[slot] = entities[last];
+			flags[slot] = flags[last];
+			transforms[slot] = transforms[last];
+			movements[slot] = movements[last];
+			bounds[slot] = bounds[last];
+			x[slot] = x[last];
+			y[slot] = y[last];
+			vx[slot] = vx[last];
+			vy[slot] = vy[last];
+			ax[slot] = ax[last];
+			ay[slot] = ay[last];
+			rotation[slot] = rotation[last];
+			spin[slot] = spin[last];
+			width[slot] = width[last];
+			height[slot] = height[last];
+			slots.put(entities[slot], slot);
+		}
+		entities[last] = null;
+		transforms[last] = null;
+		movements[last] = null;
+		bounds[last] = null;
+	}
+
+	private void allocate(int capacity) {
+		entities = new Entity[capacity];
+		flags = new int[capacity];
+		transforms = new TransformComponent[capacity];
+		movements = new MovementComponent[capacity];
+		bounds = new BoundsComponent[capacity];
+		x = new float[capacity];
+		y = new float[capacity];
+		vx = new float[capacity];
+		vy = new float[capacity];
+		ax = new float[capacity];
+		ay = new float[capacity];
+		rotation = new float[capacity];
+		spin = new float[capacity];
+		width = new float[capacity];
+		height = new float[capacity];
+	}
+
+	private void grow() {
+		Entity[] entities = this.entities;
+		int[] flags = this.flags;
+		TransformComponent[] transforms = this.transforms;
+		MovementComponent[] movements = this.movements;
+		BoundsComponent[] bounds = this.bounds;
+		float[][] columns = { x, y, vx, vy, ax, ay, rotation, spin, width, height };
+
+		allocate(entities.length * 2);
+		System.arraycopy(entities, 0, this.entities, 0, size);
+		System.arraycopy(flags, 0, this.flags, 0, size);
+		System.arraycopy(transforms, 0, this.transforms, 0, size);
+		System.arraycopy(movements, 0, this.movements, 0, size);
+		System.arraycopy(bounds, 0, this.bounds, 0, size);
+		float[][] grown = { x, y, vx, vy, ax, ay, rotation, spin, width, height };
+		for (int i = 0; i < columns.length; i++) {
+			System.arraycopy(columns[i], 0, grown[i], 0, size);
+		}
+	}
+
+	private class FlagListener implements EntityListener {
+		private final int flag;
+
+		FlagListener(int flag) {
+			this.flag = flag;
+		}
+
+		@Override
+		public void entityAdded(Entity entity) {
+			flag(entity, flag);
+		}
+
+		@Override
+		public void entityRemoved(Entity entity) {
+			unflag(entity, flag);
+		}
+	}
+}
@@ -16,21 +16,315 @@
 
 package danielhabib.sandbox.systems;
 
+import com.badlogic.ashley.core.ComponentMapper;
+import com.badlogic.ashley.core.Engine;
 import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.EntityListener;
+import com.badlogic.ashley.core.EntitySystem;
 import com.badlogic.ashley.core.Family;
-import com.badlogic.ashley.systems.IteratingSystem;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.LongArray;
+import com.badlogic.gdx.utils.ObjectMap;
 
+import danielhabib.factory.StaticLayer;
+import danielhabib.factory.World;
+import danielhabib.sandbox.components.BoundsComponent;
+import danielhabib.sandbox.components.MovementComponent;
 import danielhabib.sandbox.components.PlatformComponent;
+import danielhabib.sandbox.events.HitEvent;
+import danielhabib.sandbox.types.PlatformType;
 
-public class PlatformSystem extends IteratingSystem {
-	private static final Family family = Family.all(PlatformComponent.class).get();
+/**
+ * Hits platforms when something that moves runs into them. Platform bounds
+ * are kept in a tile-aligned {@link SpatialGrid}; only platforms that move
+ * are re-indexed each tick, so each mover only checks the platforms in the
+ * cells under it. A platform is hit once when the overlap begins, not on
+ * every tick it lasts. Two platforms that both move overlap once too: the
+ * one with the lower id is taken as running into the other. Hits are
+ * posted as {@link HitEvent}s when the engine has an {@link EventSystem},
+ * and call the platform's callback otherwise.
+ *
+ * Platforms without a {@link MovementComponent} are taken as static; call
+ * {@link #moved(Entity)} after moving one by hand. Tiles of the world's
+ * {@link StaticLayer} are no entities, so movers are checked against the
+ * cells under them too and hit those as {@link PlatformType#WALL walls}.
+ */
+public class PlatformSystem extends EntitySystem implements ScheduledSystem {
+	/** One tile. */
+	public static final float CELL_SIZE = 1f;
+
+	private static final Family platforms = Family.all(PlatformComponent.class, BoundsComponent.class).get();
+	private static final Family movers = Family.all(MovementComponent.class, BoundsComponent.class).get();
+
+	private final SpatialGrid<Body> grid;
+	/** Null without static tiles to hit. */
+	private final World world;
+	private final ObjectMap<Entity, Body> bodies = new ObjectMap<Entity, Body>();
+	private final Array<Body> moving = new Array<Body>(false, 64);
+	private final Array<Body> pending = new Array<Body>(false, 64);
+	private final Array<Body> colliders = new Array<Body>(false, 64);
+	private final Array<Body> found = new Array<Body>(false, 16);
+	private LongArray contacts = new LongArray(64);
+	private LongArray previous = new LongArray(64);
+	/** Mover, then platform, for each hit; null for a wall. */
+	private final Array<Body> hits = new Array<Body>(false, 16);
+	private int nextId;
+	private int stamp;
+	private SystemScheduler scheduler;
+	private EventSystem events;
+
+	private ComponentMapper<BoundsComponent> bm = ComponentMapper.getFor(BoundsComponent.class);
+	private ComponentMapper<PlatformComponent> pm = ComponentMapper.getFor(PlatformComponent.class);
+	private ComponentMapper<MovementComponent> mm = ComponentMapper.getFor(MovementComponent.class);
+
+	private final EntityListener platformListener = new EntityListener() {
+		@Override
+		public void entityAdded(Entity entity) {
+			Body body = body(entity);
+			body.platform = true;
+			// placed on the next update, once its bounds are filled in
+			(mm.has(entity) ? moving : pending).add(body);
+		}
+
+		@Override
+		public void entityRemoved(Entity entity) {
+			Body body = bodies.get(entity);
+			grid.remove(body.handle);
+			moving.removeValue(body, true);
+			pending.removeValue(body, true);
+			body.platform = false;
+			release(body);
+		}
+	};
+
+	private final EntityListener moverListener = new EntityListener() {
+		@Override
+		public void entityAdded(Entity entity) {
+			Body body = body(entity);
+			body.collider = true;
+			colliders.add(body);
+		}
+
+		@Override
+		public void entityRemoved(Entity entity) {
+			Body body = bodies.get(entity);
+			colliders.removeValue(body, true);
+			body.collider = false;
+			release(body);
+		}
+	};
 
 	public PlatformSystem() {
-		super(family);
+		this(null);
+	}
+
+	/** @param world whose static tiles are hit as walls, once loaded */
+	public PlatformSystem(World world) {
+		this(world, CELL_SIZE);
+	}
+
+	public PlatformSystem(World world, float cellSize) {
+		// after movement and bounds, so it sees this tick's positions
+		super(1);
+		this.world = world;
+		grid = new SpatialGrid<Body>(cellSize);
 	}
 
 	@Override
-	public void processEntity(Entity entity, float deltaTime) {
+	public void addedToEngine(Engine engine) {
+		for (Entity entity : engine.getEntitiesFor(platforms)) {
+			platformListener.entityAdded(entity);
+		}
+		for (Entity entity : engine.getEntitiesFor(movers)) {
+			moverListener.entityAdded(entity);
+		}
+		engine.addEntityListener(platforms, platformListener);
+		engine.addEntityListener(movers, moverListener);
 	}
 
+	@Override
+	public void removedFromEngine(Engine engine) {
+		engine.removeEntityListener(platformListener);
+		engine.removeEntityListener(moverListener);
+		bodies.clear();
+		moving.clear();
+		pending.clear();
+		colliders.clear();
+		contacts.clear();
+		previous.clear();
+		grid.clear();
+	}
+
+	/** Re-indexes a platform whose bounds changed outside of movement. */
+	public void moved(Entity entity) {
+		Body body = bodies.get(entity);
+		if (body != null && body.platform) {
+			place(body);
+		}
+	}
+
+	@Override
+	public void update(float deltaTime) {
+		scheduler = getEngine().getSystem(SystemScheduler.class);
+		if (scheduler != null && !scheduler.schedules(this)) {
+			scheduler = null;
+		}
+		events = getEngine().getSystem(EventSystem.class);
+
+		for (int i = 0; i < pending.size; i++) {
+			place(pending.get(i));
+		}
+		pending.clear();
+		for (int i = 0; i < moving.size; i++) {
+			place(moving.get(i));
+		}
+
+		LongArray swap = previous;
+		previous = contacts;
+		contacts = swap;
+		contacts.clear();
+		StaticLayer walls = world != null ? world.staticLayer : null;
+		for (int i = 0; i < colliders.size; i++) {
+			collide(colliders.get(i));
+			if (walls != null) {
+				collide(colliders.get(i), walls);
+			}
+		}
+		contacts.sort();
+
+		// hits go last, so callbacks never see the grid half way through
+		for (int i = 0; i < hits.size; i += 2) {
+			if (hits.get(i + 1) == null) {
+				if (events != null) {
+					HitEvent hit = events.getBus().post(HitEvent.class);
+					hit.entity = hits.get(i).entity;
+					hit.type = PlatformType.WALL;
+				}
+				continue;
+			}
+			Entity entity = hits.get(i + 1).entity;
+			PlatformComponent platform = pm.get(entity);
+			if (events != null) {
+				HitEvent hit = events.getBus().post(HitEvent.class);
+				hit.entity = hits.get(i).entity;
+				hit.platform = entity;
+				hit.type = platform.type;
+				hit.callback = platform.generalCallback;
+			} else if (scheduler != null) {
+				scheduler.defer(platform.generalCallback);
+			} else {
+				platform.hit();
+			}
+		}
+		hits.clear();
+	}
+
+	/** Overlaps found on the last update. */
+	public int getContactCount() {
+		return contacts.size;
+	}
+
+	@Override
+	public void declareAccess(SystemAccess access) {
+		access.read(BoundsComponent.class, MovementComponent.class, PlatformComponent.class);
+	}
+
+	private void collide(Body collider) {
+		Rectangle bounds = bm.get(collider.entity).bounds;
+		if (++stamp == 0) {
+			stamp = 1;
+		}
+		grid.query(bounds.x, bounds.y, bounds.width, bounds.height, stamp, found);
+		for (int i = 0; i < found.size; i++) {
+			Body platform = found.get(i);
+			// the other finds the pair too when it moves, so only one side keeps it
+			if (platform == collider || (platform.collider && collider.platform && platform.id < collider.id)
+					|| !bounds.overlaps(bm.get(platform.entity).bounds)) {
+				continue;
+			}
+			long pair = ((long) collider.id << 32) | (platform.id & 0xffffffffL);
+			contacts.add(pair);
+			if (!contains(previous, pair)) {
+				hits.add(collider);
+				hits.add(platform);
+			}
+		}
+		found.clear();
+	}
+
+	/** Hits the static tiles under the collider; their pairs take the cell index, complemented. */
+	private void collide(Body collider, StaticLayer walls) {
+		Rectangle bounds = bm.get(collider.entity).bounds;
+		float tileWidth = walls.getTileWidth();
+		float tileHeight = walls.getTileHeight();
+		// cells the bounds overlap, not the ones they only touch
+		int endX = MathUtils.ceil((bounds.x + bounds.width) / tileWidth);
+		int endY = MathUtils.ceil((bounds.y + bounds.height) / tileHeight);
+		for (int x = MathUtils.floor(bounds.x / tileWidth); x < endX; x++) {
+			for (int y = MathUtils.floor(bounds.y / tileHeight); y < endY; y++) {
+				if (walls.getTile(x, y) == null) {
+					continue;
+				}
+				long pair = ((long) collider.id << 32) | (~(y * walls.getWidth() + x) & 0xffffffffL);
+				contacts.add(pair);
+				if (!contains(previous, pair)) {
+					hits.add(collider);
+					hits.add(null);
+				}
+			}
+		}
+	}
+
+	private void place(Body body) {
+		Rectangle bounds = bm.get(body.entity).bounds;
+		grid.update(body.handle, bounds.x, bounds.y, bounds.width, bounds.height);
+	}
+
+	private Body body(Entity entity) {
+		Body body = bodies.get(entity);
+		if (body == null) {
+			body = new Body(entity, nextId++);
+			bodies.put(entity, body);
+		}
+		return body;
+	}
+
+	private void release(Body body) {
+		if (!body.platform && !body.collider) {
+			bodies.remove(body.entity);
+		}
+	}
+
+	private static boolean contains(LongArray sorted, long value) {
+		int low = 0;
+		int high = sorted.size - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			long item = sorted.get(mid);
+			if (item < value) {
+				low = mid + 1;
+			} else if (item > value) {
+				high = mid - 1;
+			} else {
+				return true;
+			}
+		}
+		return false;
+	}
+
+	private static class Body {
+		final Entity entity;
+		final int id;
+		final SpatialGrid.Handle<Body> handle;
+		boolean platform;
+		boolean collider;
+
+		Body(Entity entity, int id) {
+			this.entity = entity;
+			this.id = id;
+			handle = new SpatialGrid.Handle<Body>(this);
+		}
+	}
 }
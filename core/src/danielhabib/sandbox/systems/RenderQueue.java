@@ -0,0 +1,194 @@
+package danielhabib.sandbox.systems;
+
+import java.util.Comparator;
+
+import com.badlogic.ashley.core.ComponentMapper;
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.Pool;
+
+import danielhabib.sandbox.components.BoundsComponent;
+import danielhabib.sandbox.components.TextureComponent;
+import danielhabib.sandbox.components.TransformComponent;
+
+/**
+ * Draw order kept sorted between frames: back to front by z, then grouped by
+ * texture so the batch flushes less. Keys are cached per entry, so the sort
+ * only runs when a z or a texture actually changed, and then it runs over an
+ * almost sorted array (linear for the TimSort behind {@link Array#sort}).
+ * Entries are also bucketed in a {@link SpatialGrid} so the camera view can
+ * be culled without testing every entity.
+ */
+public class RenderQueue {
+
+	public static class Node {
+		public Entity entity;
+		public TextureRegion region;
+		float z;
+		int texture;
+		boolean removed;
+		final SpatialGrid.Handle<Node> cell = new SpatialGrid.Handle<Node>(this);
+	}
+
+	/** Grid cell side in meters, see {@link RenderingSystem#PIXELS_TO_METER}. */
+	public static final float CELL_SIZE = 8f;
+
+	private final Array<Node> nodes = new Array<Node>(true, 256, Node.class);
+	private final ObjectMap<Entity, Node> lookup = new ObjectMap<Entity, Node>();
+	private final Pool<Node> pool = new Pool<Node>() {
+		@Override
+		protected Node newObject() {
+			return new Node();
+		}
+	};
+	private final Comparator<Node> comparator = new Comparator<Node>() {
+		@Override
+		public int compare(Node a, Node b) {
+			int byZ = Float.compare(b.z, a.z);
+			if (byZ != 0) {
+				return byZ;
+			}
+			return a.texture - b.texture;
+		}
+	};
+
+	private final SpatialGrid<Node> grid = new SpatialGrid<Node>(CELL_SIZE);
+
+	private ComponentMapper<TextureComponent> textureM = ComponentMapper.getFor(TextureComponent.class);
+	private ComponentMapper<TransformComponent> transformM = ComponentMapper.getFor(TransformComponent.class);
+	private ComponentMapper<BoundsComponent> boundsM = ComponentMapper.getFor(BoundsComponent.class);
+
+	private boolean dirty;
+	private int removed;
+	private int frame;
+	private boolean culled;
+
+	public void add(Entity entity) {
+		Node node = lookup.get(entity);
+		if (node != null) {
+			// removed and added back in the same frame: slot is still there
+			if (node.removed) {
+				node.removed = false;
+				removed--;
+			}
+			return;
+		}
+		node = pool.obtain();
+		node.entity = entity;
+		node.removed = false;
+		node.z = Float.NaN;
+		lookup.put(entity, node);
+		nodes.add(node);
+		dirty = true;
+	}
+
+	public void remove(Entity entity) {
+		Node node = lookup.get(entity);
+		if (node != null && !node.removed) {
+			node.removed = true;
+			removed++;
+		}
+	}
+
+	/** Refreshes the cached keys and restores the order if any of them moved. */
+	public void update() {
+		if (removed > 0) {
+			compact();
+		}
+		Node[] items = nodes.items;
+		for (int i = 0, n = nodes.size; i < n; i++) {
+			Node node = items[i];
+			TextureRegion region = textureM.get(node.entity).region;
+			TransformComponent transform = transformM.get(node.entity);
+			float z = transform.pos.z;
+			if (z != node.z) {
+				node.z = z;
+				dirty = true;
+			}
+			if (region != node.region) {
+				int texture = region == null ? 0 : region.getTexture().getTextureObjectHandle();
+				if (texture != node.texture) {
+					node.texture = texture;
+					dirty = true;
+				}
+				node.region = region;
+			}
+			place(node, transform, region);
+		}
+		if (dirty) {
+			nodes.sort(comparator);
+			dirty = false;
+		}
+	}
+
+	/**
+	 * Marks the entries whose bounds touch the given rectangle, in meters, as
+	 * visible and returns how many there are.
+	 */
+	public int cull(float x, float y, float width, float height) {
+		culled = true;
+		return grid.query(x, y, width, height, ++frame);
+	}
+
+	/** Everything is visible until the next {@link #cull}. */
+	public void uncull() {
+		culled = false;
+	}
+
+	public boolean isVisible(Node node) {
+		return !culled || node.cell.isStamped(frame);
+	}
+
+	public int size() {
+		return nodes.size;
+	}
+
+	public Node get(int index) {
+		return nodes.items[index];
+	}
+
+	public void clear() {
+		pool.freeAll(nodes);
+		nodes.clear();
+		lookup.clear();
+		grid.clear();
+		removed = 0;
+	}
+
+	private void compact() {
+		Node[] items = nodes.items;
+		int size = nodes.size;
+		int j = 0;
+		for (int i = 0; i < size; i++) {
+			Node node = items[i];
+			if (node.removed) {
+				lookup.remove(node.entity);
+				grid.remove(node.cell);
+				node.entity = null;
+				node.region = null;
+				pool.free(node);
+			} else {
+				items[j++] = node;
+			}
+		}
+		nodes.truncate(j);
+		removed = 0;
+	}
+
+	private void place(Node node, TransformComponent transform, TextureRegion region) {
+		BoundsComponent bounds = boundsM.get(node.entity);
+		if (bounds != null) {
+			Rectangle r = bounds.bounds;
+			grid.update(node.cell, r.x, r.y, r.width, r.height);
+		} else if (region != null) {
+			float width = region.getRegionWidth() * Math.abs(transform.scale.x) * RenderingSystem.PIXELS_TO_METER;
+			float height = region.getRegionHeight() * Math.abs(transform.scale.y) * RenderingSystem.PIXELS_TO_METER;
+			grid.update(node.cell, transform.pos.x - width * 0.5f, transform.pos.y - height * 0.5f, width, height);
+		} else {
+			grid.remove(node.cell);
+		}
+	}
+}
@@ -1,100 +1,170 @@
 
 package danielhabib.sandbox.systems;
 
-import java.util.Comparator;
-
 import com.badlogic.ashley.core.ComponentMapper;
+import com.badlogic.ashley.core.Engine;
 import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.EntityListener;
+import com.badlogic.ashley.core.EntitySystem;
 import com.badlogic.ashley.core.Family;
-import com.badlogic.ashley.systems.IteratingSystem;
 import com.badlogic.gdx.Gdx;
 import com.badlogic.gdx.graphics.OrthographicCamera;
-import com.badlogic.gdx.graphics.g2d.SpriteBatch;
+import com.badlogic.gdx.graphics.g2d.Batch;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
 import com.badlogic.gdx.math.MathUtils;
-import com.badlogic.gdx.utils.Array;
 
+import danielhabib.factory.StaticLayer;
 import danielhabib.sandbox.components.TextureComponent;
 import danielhabib.sandbox.components.TransformComponent;
 
-public class RenderingSystem extends IteratingSystem {
+public class RenderingSystem extends EntitySystem implements EntityListener {
 	public static final float PIXELS_TO_METER = 1.0f / 32.0f;
 	public static final float PIXELS_PER_METER = 32f;
 
-	private SpriteBatch batch;
-	private Array<Entity> renderQueue;
-	private Comparator<Entity> comparator;
+	private static final Family family = Family.all(TransformComponent.class, TextureComponent.class).get();
+
+	private Batch batch;
+	private RenderQueue renderQueue;
 	private OrthographicCamera cam;
+	private StaticLayerRenderer staticLayerRenderer;
+	private boolean culling = true;
+	private int visibleCount;
+	private float alpha = 1f;
 
-	private ComponentMapper<TextureComponent> textureM;
 	private ComponentMapper<TransformComponent> transformM;
 
-	public RenderingSystem(SpriteBatch batch) {
-		super(Family.all(TransformComponent.class, TextureComponent.class).get());
+	public RenderingSystem(Batch batch) {
+		this(batch, Gdx.graphics.getWidth() / PIXELS_PER_METER, Gdx.graphics.getHeight() / PIXELS_PER_METER);
+	}
 
-		textureM = ComponentMapper.getFor(TextureComponent.class);
+	/** Viewport size in meters. */
+	public RenderingSystem(Batch batch, float w, float h) {
 		transformM = ComponentMapper.getFor(TransformComponent.class);
 
-		renderQueue = new Array<Entity>();
-
-		comparator = new Comparator<Entity>() {
-			@Override
-			public int compare(Entity entityA, Entity entityB) {
-				return (int) Math.signum(transformM.get(entityB).pos.z - transformM.get(entityA).pos.z);
-			}
-		};
+		renderQueue = new RenderQueue();
 
 		this.batch = batch;
-		float w = Gdx.graphics.getWidth() / PIXELS_PER_METER;
-		float h = Gdx.graphics.getHeight() / PIXELS_PER_METER;
-
 		cam = new OrthographicCamera(w, h);
 		cam.position.set(w / 2, h / 2, 0);
 	}
 
 	@Override
-	public void update(float deltaTime) {
-		super.update(deltaTime);
+	public void addedToEngine(Engine engine) {
+		for (Entity entity : engine.getEntitiesFor(family)) {
+			renderQueue.add(entity);
+		}
+		engine.addEntityListener(family, this);
+	}
 
-		renderQueue.sort(comparator);
+	@Override
+	public void removedFromEngine(Engine engine) {
+		engine.removeEntityListener(this);
+		renderQueue.clear();
+		setStaticLayer(null);
+	}
+
+	/** Tiles drawn from cached geometry underneath the entities. */
+	public void setStaticLayer(StaticLayer layer) {
+		if (staticLayerRenderer != null) {
+			staticLayerRenderer.dispose();
+			staticLayerRenderer = null;
+		}
+		if (layer != null) {
+			staticLayerRenderer = new StaticLayerRenderer(layer);
+		}
+	}
+
+	@Override
+	public void entityAdded(Entity entity) {
+		renderQueue.add(entity);
+	}
+
+	@Override
+	public void entityRemoved(Entity entity) {
+		renderQueue.remove(entity);
+	}
+
+	@Override
+	public void update(float deltaTime) {
+		renderQueue.update();
 
 		cam.update();
+		if (staticLayerRenderer != null) {
+			staticLayerRenderer.render(cam);
+		}
+
+		if (culling) {
+			float w = cam.viewportWidth * cam.zoom;
+			float h = cam.viewportHeight * cam.zoom;
+			visibleCount = renderQueue.cull(cam.position.x - w * 0.5f, cam.position.y - h * 0.5f, w, h);
+		} else {
+			renderQueue.uncull();
+			visibleCount = renderQueue.size();
+		}
+
 		batch.setProjectionMatrix(cam.combined);
 		batch.begin();
 
-		for (Entity entity : renderQueue) {
-			TextureComponent tex = textureM.get(entity);
+		for (int i = 0, n = renderQueue.size(); i < n; i++) {
+			RenderQueue.Node node = renderQueue.get(i);
+			TextureRegion region = node.region;
 
-			if (tex.region == null) {
+			if (region == null || !renderQueue.isVisible(node)) {
 				continue;
 			}
 
-			TransformComponent t = transformM.get(entity);
+			TransformComponent t = transformM.get(node.entity);
 
-			float width = tex.region.getRegionWidth();
-			float height = tex.region.getRegionHeight();
+			float width = region.getRegionWidth();
+			float height = region.getRegionHeight();
 			// center
 			float originX = width * 0.5f;
 			float originY = height * 0.5f;
 
-			float x = t.pos.x - originX;
-			float y = t.pos.y - originY;
-			batch.draw(tex.region, x, y, originX, originY, width, height, t.scale.x * PIXELS_TO_METER,
-					t.scale.y * PIXELS_TO_METER, MathUtils.radiansToDegrees * t.rotation);
+			float posX = t.pos.x;
+			float posY = t.pos.y;
+			float rotation = t.rotation;
+			if (alpha < 1f) {
+				posX = t.previousPos.x + (posX - t.previousPos.x) * alpha;
+				posY = t.previousPos.y + (posY - t.previousPos.y) * alpha;
+				rotation = t.previousRotation + (rotation - t.previousRotation) * alpha;
+			}
+
+			float x = posX - originX;
+			float y = posY - originY;
+			batch.draw(region, x, y, originX, originY, width, height, t.scale.x * PIXELS_TO_METER,
+					t.scale.y * PIXELS_TO_METER, MathUtils.radiansToDegrees * rotation);
 		}
 
 		batch.end();
-		renderQueue.clear();
-	}
-
-	@Override
-	public void processEntity(Entity entity, float deltaTime) {
-		renderQueue.add(entity);
 	}
 
 	public OrthographicCamera getCamera() {
 		return cam;
 	}
 
+	/**
+	 * How far the frame is between the previous and the current tick, see
+	 * {@link FixedTimestep#getAlpha()}. 1 draws the current tick as is.
+	 */
+	public void setAlpha(float alpha) {
+		this.alpha = alpha;
+	}
+
+	public void setCulling(boolean culling) {
+		this.culling = culling;
+	}
+
+	/** Entities handed to the batch in the last frame. */
+	public int getVisibleCount() {
+		return visibleCount;
+	}
+
+	/** Entities in the render queue, visible or not. */
+	public int getTotalCount() {
+		return renderQueue.size();
+	}
+
 	public void zoomIn() {
 		cam.zoom -= .0625f;
 	}
@@ -3,12 +3,11 @@ package danielhabib.sandbox.systems;
 import com.badlogic.ashley.core.ComponentMapper;
 import com.badlogic.ashley.core.Entity;
 import com.badlogic.ashley.core.Family;
-import com.badlogic.ashley.systems.IteratingSystem;
 
 import danielhabib.sandbox.components.RotationComponent;
 import danielhabib.sandbox.components.TransformComponent;
 
-public class RotationSystem extends IteratingSystem {
+public class RotationSystem extends ParallelIteratingSystem<Void> implements ScheduledSystem {
 	private static final Family family = Family
 			.all(RotationComponent.class, TransformComponent.class).get();
 	private ComponentMapper<TransformComponent> tm;
@@ -20,9 +19,18 @@ public class RotationSystem extends IteratingSystem {
 		rc = ComponentMapper.getFor(RotationComponent.class);
 	}
 	@Override
-	protected void processEntity(Entity entity, float deltaTime) {
+	protected Void createScratch() {
+		return null;
+	}
+
+	@Override
+	protected void processEntity(Entity entity, float deltaTime, Void scratch) {
 		TransformComponent pos = tm.get(entity);
 		pos.rotation += rc.get(entity).rotation;
 	}
 
+	@Override
+	public void declareAccess(SystemAccess access) {
+		access.read(RotationComponent.class).write(TransformComponent.class);
+	}
 }
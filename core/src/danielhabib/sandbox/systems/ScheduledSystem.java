@@ -0,0 +1,10 @@
+package danielhabib.sandbox.systems;
+
+/**
+ * A system that tells the {@link SystemScheduler} which components it reads
+ * and writes, so it can run next to systems it does not conflict with.
+ * Systems that do not implement it run alone.
+ */
+public interface ScheduledSystem {
+	public void declareAccess(SystemAccess access);
+}
@@ -0,0 +1,112 @@
+package danielhabib.sandbox.systems;
+
+import com.badlogic.ashley.core.ComponentMapper;
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.Family;
+import com.badlogic.ashley.systems.IteratingSystem;
+import com.badlogic.gdx.Input.Keys;
+
+import danielhabib.factory.World;
+import danielhabib.sandbox.components.SnakeComponent;
+import danielhabib.sandbox.components.StateComponent;
+import danielhabib.sandbox.components.TransformComponent;
+
+/**
+ * Moves snakes cell by cell at their speed and puts the snake entity's
+ * transform on the centre of the head cell: transforms are centres, while
+ * cell x, y spans tiles x to x + 1 and y to y + 1, as the static layer's
+ * do. A step is constant time whatever the length, see
+ * {@link SnakeComponent}. The arrow keys of the {@link InputSystem} turn
+ * every snake; a {@link StateComponent} in
+ * {@link SnakeComponent#STATE_REVERTING} turns the snake around once, in
+ * {@link SnakeComponent#STATE_STOP} holds it.
+ */
+public class SnakeMovementSystem extends IteratingSystem implements ScheduledSystem {
+	private static final Family family = Family.all(SnakeComponent.class, TransformComponent.class).get();
+
+	private final World world;
+	private InputSystem input;
+	private DensePhysicsSystem physics;
+	private int turnX;
+	private int turnY;
+
+	private ComponentMapper<SnakeComponent> sm = ComponentMapper.getFor(SnakeComponent.class);
+	private ComponentMapper<TransformComponent> tm = ComponentMapper.getFor(TransformComponent.class);
+	private ComponentMapper<StateComponent> stm = ComponentMapper.getFor(StateComponent.class);
+
+	/** @param world gives the size of a cell */
+	public SnakeMovementSystem(World world) {
+		super(family);
+		this.world = world;
+	}
+
+	@Override
+	public void update(float deltaTime) {
+		input = getEngine().getSystem(InputSystem.class);
+		physics = getEngine().getSystem(DensePhysicsSystem.class);
+		turnX = turnY = 0;
+		if (input != null) {
+			if (input.isJustPressed(Keys.LEFT)) {
+				turnX = -1;
+			} else if (input.isJustPressed(Keys.RIGHT)) {
+				turnX = 1;
+			} else if (input.isJustPressed(Keys.UP)) {
+				turnY = 1;
+			} else if (input.isJustPressed(Keys.DOWN)) {
+				turnY = -1;
+			}
+		}
+		super.update(deltaTime);
+	}
+
+	@Override
+	protected void processEntity(Entity entity, float deltaTime) {
+		SnakeComponent snake = sm.get(entity);
+		if (snake.getLength() == 0) {
+			return;
+		}
+		if (turnX != 0 || turnY != 0) {
+			snake.turnX = turnX;
+			snake.turnY = turnY;
+		}
+		StateComponent state = stm.get(entity);
+		if (state != null) {
+			if (state.get() == SnakeComponent.STATE_REVERTING) {
+				snake.reverse();
+				state.set(SnakeComponent.STATE_MOVING);
+			} else if (state.get() == SnakeComponent.STATE_STOP) {
+				return;
+			}
+		}
+		snake.progress += snake.speed * deltaTime;
+		while (snake.progress >= 1) {
+			snake.progress -= 1;
+			step(snake);
+		}
+		TransformComponent transform = tm.get(entity);
+		transform.pos.x = (snake.getHeadX() + 0.5f) * world.getTileWidth();
+		transform.pos.y = (snake.getHeadY() + 0.5f) * world.getTileHeight();
+		if (physics != null) {
+			physics.getStore().pull(entity);
+		}
+	}
+
+	private void step(SnakeComponent snake) {
+		if (snake.turnX != 0 || snake.turnY != 0) {
+			int x = snake.getHeadX() + snake.turnX;
+			int y = snake.getHeadY() + snake.turnY;
+			// never back into the neck
+			if (snake.getLength() < 2 || x != snake.getX(1) || y != snake.getY(1)) {
+				snake.dirX = snake.turnX;
+				snake.dirY = snake.turnY;
+			}
+			snake.turnX = snake.turnY = 0;
+		}
+		snake.step(snake.getHeadX() + snake.dirX, snake.getHeadY() + snake.dirY);
+	}
+
+	@Override
+	public void declareAccess(SystemAccess access) {
+		access.write(SnakeComponent.class, StateComponent.class, TransformComponent.class);
+	}
+}
@@ -0,0 +1,216 @@
+package danielhabib.sandbox.systems;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.IntBuffer;
+import java.util.Arrays;
+
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * The last frames of a sequence of int arrays, delta compressed into one
+ * direct buffer allocated up front. Each frame is XORed with the one before,
+ * so words that did not change become zero, and stored as runs:
+ * {@code int zeros, int count, count words}. Every {@code keyInterval}th
+ * frame is a key frame XORed with nothing, so restoring decodes at most that
+ * many frames.
+ *
+ * When the buffer or the frame table is full the oldest frames are dropped,
+ * up to the next key frame, so the oldest frame kept can always be decoded.
+ */
+public class SnapshotRing {
+	/** Direct, in ints; offsets and lengths below are in ints too. */
+	private final IntBuffer arena;
+	private final int keyInterval;
+	private final long[] ticks;
+	private final int[] offsets;
+	private final int[] lengths;
+	private final int[] words;
+	private final boolean[] keys;
+	/** Index of the oldest frame in the tables. */
+	private int first;
+	private int size;
+	private int position;
+	private int sinceKey;
+	/** What key frames are XORed with. */
+	private int[] zeros = new int[0];
+
+	public SnapshotRing(int frames, int bytes, int keyInterval) {
+		arena = ByteBuffer.allocateDirect(bytes).order(ByteOrder.nativeOrder()).asIntBuffer();
+		this.keyInterval = keyInterval;
+		ticks = new long[frames];
+		offsets = new int[frames];
+		lengths = new int[frames];
+		words = new int[frames];
+		keys = new boolean[frames];
+	}
+
+	/**
+	 * Appends the first {@code count} words of {@code frame}, as a delta
+	 * against {@code previous}, the frame appended last. {@code previous}
+	 * must be zero past the count it was appended with.
+	 */
+	public void append(long tick, int[] frame, int[] previous, int count) {
+		boolean key = size == 0 || sinceKey + 1 >= keyInterval;
+		// runs after the first start with two unchanged words at least
+		int worst = count + (count / 3 + 2) * 2;
+		if (worst > arena.capacity()) {
+			throw new GdxRuntimeException("Snapshot of " + count + " words does not fit in " + arena.capacity() * 4 + " bytes");
+		}
+		if (position + worst > arena.capacity()) {
+			// the frames from here to the end are the oldest ones
+			while (size > 0 && offsets[first] >= position) {
+				dropOldest();
+			}
+			position = 0;
+		}
+		while (size > 0 && (size == ticks.length || overlaps(first, position, worst))) {
+			dropOldest();
+		}
+		if (size == 0) {
+			key = true;
+		}
+
+		int length = encode(frame, key ? null : previous, count, position);
+		int index = (first + size) % ticks.length;
+		ticks[index] = tick;
+		offsets[index] = position;
+		lengths[index] = length;
+		words[index] = count;
+		keys[index] = key;
+		size++;
+		position += length;
+		sinceKey = key ? 0 : sinceKey + 1;
+	}
+
+	/**
+	 * Decodes the frame of {@code tick} into {@code frame}, then forgets the
+	 * frames after it so the next one appended follows on from it.
+	 *
+	 * @return the word count of the frame, or -1 if it is not kept
+	 */
+	public int rewind(long tick, int[] frame) {
+		int target = find(tick);
+		if (target < 0) {
+			return -1;
+		}
+		int key = target;
+		while (!keys[(first + key) % ticks.length]) {
+			key--;
+		}
+		// zero past the frame's count too, as append expects of it
+		Arrays.fill(frame, 0);
+		int count = 0;
+		for (int i = key; i <= target; i++) {
+			int index = (first + i) % ticks.length;
+			decode(frame, offsets[index], lengths[index]);
+			count = words[index];
+		}
+
+		size = target + 1;
+		int last = (first + target) % ticks.length;
+		position = offsets[last] + lengths[last];
+		sinceKey = target - key;
+		return count;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public long getOldestTick() {
+		return ticks[first];
+	}
+
+	public long getNewestTick() {
+		return ticks[(first + size - 1) % ticks.length];
+	}
+
+	/** Bytes the kept frames take. */
+	public int getBytes() {
+		int words = 0;
+		for (int i = 0; i < size; i++) {
+			words += lengths[(first + i) % ticks.length];
+		}
+		return words * 4;
+	}
+
+	public void clear() {
+		first = size = position = sinceKey = 0;
+	}
+
+	private int find(long tick) {
+		if (size == 0 || tick < getOldestTick() || tick > getNewestTick()) {
+			return -1;
+		}
+		int low = 0;
+		int high = size - 1;
+		while (low <= high) {
+			int mid = (low + high) >>> 1;
+			long value = ticks[(first + mid) % ticks.length];
+			if (value < tick) {
+				low = mid + 1;
+			} else if (value > tick) {
+				high = mid - 1;
+			} else {
+				return mid;
+			}
+		}
+		return -1;
+	}
+
+	private boolean overlaps(int index, int start, int length) {
+		int offset = offsets[index];
+		return offset < start + length && start < offset + lengths[index];
+	}
+
+	private void dropOldest() {
+		do {
+			first = (first + 1) % ticks.length;
+			size--;
+		} while (size > 0 && !keys[first]);
+	}
+
+	private int encode(int[] frame, int[] previous, int count, int start) {
+		if (previous == null) {
+			if (zeros.length < count) {
+				zeros = new int[count];
+			}
+			previous = zeros;
+		}
+		IntBuffer arena = this.arena;
+		int out = start;
+		int i = 0;
+		while (i < count) {
+			int from = i;
+			while (i < count && frame[i] == previous[i]) {
+				i++;
+			}
+			int header = out;
+			out += 2;
+			int literals = i;
+			// a lone unchanged word costs less inside the run than a new run
+			while (i < count && (frame[i] != previous[i] || i + 1 < count && frame[i + 1] != previous[i + 1])) {
+				arena.put(out++, frame[i] ^ previous[i]);
+				i++;
+			}
+			arena.put(header, literals - from);
+			arena.put(header + 1, i - literals);
+		}
+		return out - start;
+	}
+
+	private void decode(int[] frame, int start, int length) {
+		int in = start;
+		int end = start + length;
+		int i = 0;
+		while (in < end) {
+			i += arena.get(in);
+			int literals = arena.get(in + 1);
+			in += 2;
+			for (int j = 0; j < literals; j++) {
+				frame[i++] ^= arena.get(in++);
+			}
+		}
+	}
+}
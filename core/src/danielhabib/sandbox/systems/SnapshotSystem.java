@@ -0,0 +1,339 @@
+package danielhabib.sandbox.systems;
+
+import java.util.Arrays;
+
+import com.badlogic.ashley.core.ComponentMapper;
+import com.badlogic.ashley.core.Engine;
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.EntityListener;
+import com.badlogic.ashley.core.EntitySystem;
+import com.badlogic.ashley.core.Family;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.IntArray;
+import com.badlogic.gdx.utils.ObjectIntMap;
+
+import danielhabib.factory.Parameters;
+import danielhabib.sandbox.components.ModifierComponent;
+import danielhabib.sandbox.components.MovementComponent;
+import danielhabib.sandbox.components.StateComponent;
+import danielhabib.sandbox.components.TimeoutComponent;
+import danielhabib.sandbox.components.TransformComponent;
+import danielhabib.sandbox.types.StatType;
+
+/**
+ * Captures what the simulation runs on after every tick into a
+ * {@link SnapshotRing}, so any tick of the last few seconds can be restored.
+ * Each entity gets a fixed record of ints: its transform, movement, state,
+ * first {@link #MODIFIERS} modifiers and the ticks left on its timeout.
+ *
+ * Restoring only touches entities that still exist and components they had
+ * then and still have: entities added or removed since, components added or
+ * removed since and timeout callbacks are left as they are.
+ */
+public class SnapshotSystem extends EntitySystem implements EntityListener, ScheduledSystem {
+	public static final int MODIFIERS = 4;
+
+	private static final int GENERATION = 0;
+	private static final int FLAGS = 1;
+	private static final int POS = 2;
+	private static final int SCALE = 5;
+	private static final int ROTATION = 7;
+	private static final int VELOCITY = 8;
+	private static final int ACCEL = 10;
+	private static final int STATE = 12;
+	/** Snapshot tick the timeout fires on, so it does not change every tick. */
+	private static final int TIMEOUT = 13;
+	private static final int STARTED = 14;
+	private static final int BASE_VELOCITY = 15;
+	private static final int APPLIED = 17;
+	private static final int MODIFIER_COUNT = APPLIED + StatType.COUNT;
+	/** stat, factor and snapshot tick it expires on, for each modifier */
+	private static final int MODIFIER = MODIFIER_COUNT + 1;
+	private static final int RECORD = MODIFIER + MODIFIERS * 3;
+
+	private static final int HAS_TRANSFORM = 1;
+	private static final int HAS_MOVEMENT = 2;
+	private static final int HAS_STATE = 4;
+	private static final int HAS_TIMEOUT = 8;
+	private static final int HAS_MODIFIERS = 16;
+
+	private static final StatType[] STATS = StatType.values();
+	private static final Family family = Family.one(TransformComponent.class, MovementComponent.class,
+			StateComponent.class, TimeoutComponent.class, ModifierComponent.class).get();
+
+	private final SnapshotRing ring;
+	private int[] frame;
+	private int[] previous;
+	private final Array<Entity> slots = new Array<Entity>();
+	private int[] generations = new int[64];
+	private final ObjectIntMap<Entity> slotOf = new ObjectIntMap<Entity>();
+	private final IntArray free = new IntArray();
+	private int slotCount;
+	private int nextGeneration = 1;
+	private long tick;
+	private TimeoutSystem timeouts;
+	private ModifierSystem modifierSystem;
+	private DensePhysicsSystem physics;
+
+	private ComponentMapper<TransformComponent> tm = ComponentMapper.getFor(TransformComponent.class);
+	private ComponentMapper<MovementComponent> mm = ComponentMapper.getFor(MovementComponent.class);
+	private ComponentMapper<StateComponent> sm = ComponentMapper.getFor(StateComponent.class);
+	private ComponentMapper<TimeoutComponent> tom = ComponentMapper.getFor(TimeoutComponent.class);
+	private ComponentMapper<ModifierComponent> modm = ComponentMapper.getFor(ModifierComponent.class);
+
+	public SnapshotSystem() {
+		this(Parameters.SNAPSHOT_SECONDS, Parameters.SNAPSHOT_BYTES);
+	}
+
+	/**
+	 * @param seconds how far back ticks are kept, at {@link Parameters#TICK_RATE}
+	 * @param bytes room for the compressed ticks; when they do not fit, fewer
+	 *            seconds are kept
+	 */
+	public SnapshotSystem(float seconds, int bytes) {
+		// after every other system, so a snapshot is the state a tick ends with
+		super(Integer.MAX_VALUE);
+		ring = new SnapshotRing((int) (seconds * Parameters.TICK_RATE) + 1, bytes, (int) Parameters.TICK_RATE);
+		frame = new int[generations.length * RECORD];
+		previous = new int[generations.length * RECORD];
+	}
+
+	@Override
+	public void addedToEngine(Engine engine) {
+		for (Entity entity : engine.getEntitiesFor(family)) {
+			entityAdded(entity);
+		}
+		engine.addEntityListener(family, this);
+	}
+
+	@Override
+	public void removedFromEngine(Engine engine) {
+		engine.removeEntityListener(this);
+		slots.clear();
+		slotOf.clear();
+		free.clear();
+		slotCount = 0;
+		ring.clear();
+	}
+
+	@Override
+	public void entityAdded(Entity entity) {
+		int slot = free.size > 0 ? free.pop() : slotCount++;
+		if (slot == generations.length) {
+			grow();
+		}
+		while (slots.size <= slot) {
+			slots.add(null);
+		}
+		slots.set(slot, entity);
+		generations[slot] = nextGeneration;
+		nextGeneration = nextGeneration == Integer.MAX_VALUE ? 1 : nextGeneration + 1;
+		slotOf.put(entity, slot);
+	}
+
+	@Override
+	public void entityRemoved(Entity entity) {
+		int slot = slotOf.remove(entity, -1);
+		if (slot >= 0) {
+			slots.set(slot, null);
+			generations[slot] = 0;
+			free.add(slot);
+		}
+	}
+
+	@Override
+	public void update(float deltaTime) {
+		timeouts = getEngine().getSystem(TimeoutSystem.class);
+		modifierSystem = getEngine().getSystem(ModifierSystem.class);
+
+		tick++;
+		for (int slot = 0; slot < slotCount; slot++) {
+			Entity entity = slots.get(slot);
+			if (entity == null) {
+				clear(slot * RECORD, 0, RECORD);
+			} else {
+				capture(entity, slot);
+			}
+		}
+		ring.append(tick, frame, previous, slotCount * RECORD);
+		int[] swap = previous;
+		previous = frame;
+		frame = swap;
+	}
+
+	/** Ticks captured so far; the last one is the state right now. */
+	public long getTick() {
+		return tick;
+	}
+
+	/** Earliest tick that can be restored, -1 if none. */
+	public long getOldestTick() {
+		return ring.size() == 0 ? -1 : ring.getOldestTick();
+	}
+
+	/** Bytes the kept ticks take. */
+	public int getBytes() {
+		return ring.getBytes();
+	}
+
+	/**
+	 * Puts back the state as of the end of {@code tick}. Ticks captured after
+	 * it are forgotten, so the next one follows on from it.
+	 *
+	 * @return false if the tick is not kept
+	 */
+	public boolean restore(long tick) {
+		int count = ring.rewind(tick, previous);
+		if (count < 0) {
+			return false;
+		}
+		this.tick = tick;
+		timeouts = getEngine().getSystem(TimeoutSystem.class);
+		modifierSystem = getEngine().getSystem(ModifierSystem.class);
+		physics = getEngine().getSystem(DensePhysicsSystem.class);
+		for (int slot = 0, n = Math.min(count / RECORD, slotCount); slot < n; slot++) {
+			int generation = previous[slot * RECORD + GENERATION];
+			if (generation != 0 && generations[slot] == generation) {
+				restore(slots.get(slot), slot * RECORD);
+			}
+		}
+		return true;
+	}
+
+	@Override
+	public void declareAccess(SystemAccess access) {
+		access.read(TransformComponent.class, MovementComponent.class, StateComponent.class, TimeoutComponent.class,
+				ModifierComponent.class);
+	}
+
+	private void capture(Entity entity, int slot) {
+		int base = slot * RECORD;
+		int flags = 0;
+		TransformComponent transform = tm.get(entity);
+		if (transform != null) {
+			flags |= HAS_TRANSFORM;
+			putFloat(base + POS, transform.pos.x);
+			putFloat(base + POS + 1, transform.pos.y);
+			putFloat(base + POS + 2, transform.pos.z);
+			putFloat(base + SCALE, transform.scale.x);
+			putFloat(base + SCALE + 1, transform.scale.y);
+			putFloat(base + ROTATION, transform.rotation);
+		} else {
+			clear(base, POS, VELOCITY);
+		}
+		MovementComponent movement = mm.get(entity);
+		if (movement != null) {
+			flags |= HAS_MOVEMENT;
+			putFloat(base + VELOCITY, movement.velocity.x);
+			putFloat(base + VELOCITY + 1, movement.velocity.y);
+			putFloat(base + ACCEL, movement.accel.x);
+			putFloat(base + ACCEL + 1, movement.accel.y);
+		} else {
+			clear(base, VELOCITY, STATE);
+		}
+		StateComponent state = sm.get(entity);
+		if (state != null) {
+			flags |= HAS_STATE;
+		}
+		frame[base + STATE] = state == null ? 0 : state.get();
+		long remaining = timeouts == null || !tom.has(entity) ? -1 : timeouts.getRemainingTicks(entity);
+		if (remaining >= 0) {
+			flags |= HAS_TIMEOUT;
+		}
+		frame[base + TIMEOUT] = remaining < 0 ? 0 : expiry(remaining);
+		ModifierComponent modifiers = modm.get(entity);
+		int count = 0;
+		if (modifiers != null && modifierSystem != null) {
+			flags |= HAS_MODIFIERS;
+			frame[base + STARTED] = modifiers.started ? 1 : 0;
+			putFloat(base + BASE_VELOCITY, modifiers.baseVelocity.x);
+			putFloat(base + BASE_VELOCITY + 1, modifiers.baseVelocity.y);
+			for (int i = 0; i < StatType.COUNT; i++) {
+				putFloat(base + APPLIED + i, modifiers.applied[i]);
+			}
+			count = Math.min(modifiers.size, MODIFIERS);
+			for (int i = 0; i < count; i++) {
+				int at = base + MODIFIER + i * 3;
+				frame[at] = modifiers.stats[i];
+				putFloat(at + 1, modifiers.factors[i]);
+				frame[at + 2] = expiry(modifierSystem.getRemainingTicks(modifiers, i));
+			}
+		} else {
+			clear(base, STARTED, MODIFIER_COUNT);
+		}
+		frame[base + MODIFIER_COUNT] = count;
+		clear(base, MODIFIER + count * 3, RECORD);
+		frame[base + GENERATION] = generations[slot];
+		frame[base + FLAGS] = flags;
+	}
+
+	private void restore(Entity entity, int base) {
+		int flags = previous[base + FLAGS];
+		boolean moved = false;
+		TransformComponent transform = tm.get(entity);
+		if (transform != null && (flags & HAS_TRANSFORM) != 0) {
+			transform.pos.set(getFloat(base + POS), getFloat(base + POS + 1), getFloat(base + POS + 2));
+			transform.scale.set(getFloat(base + SCALE), getFloat(base + SCALE + 1));
+			transform.rotation = getFloat(base + ROTATION);
+			// nothing to interpolate from across a rewind
+			transform.previousPos.set(transform.pos);
+			transform.previousRotation = transform.rotation;
+			moved = true;
+		}
+		MovementComponent movement = mm.get(entity);
+		if (movement != null && (flags & HAS_MOVEMENT) != 0) {
+			movement.velocity.set(getFloat(base + VELOCITY), getFloat(base + VELOCITY + 1));
+			movement.accel.set(getFloat(base + ACCEL), getFloat(base + ACCEL + 1));
+			moved = true;
+		}
+		// after the velocity, which a component not started yet takes its base from
+		ModifierComponent modifiers = modm.get(entity);
+		if (modifiers != null && modifierSystem != null && (flags & HAS_MODIFIERS) != 0) {
+			modifiers.reset();
+			modifiers.started = previous[base + STARTED] != 0;
+			modifiers.baseVelocity.set(getFloat(base + BASE_VELOCITY), getFloat(base + BASE_VELOCITY + 1));
+			for (int i = 0; i < StatType.COUNT; i++) {
+				modifiers.applied[i] = getFloat(base + APPLIED + i);
+			}
+			for (int i = 0, n = previous[base + MODIFIER_COUNT]; i < n; i++) {
+				int at = base + MODIFIER + i * 3;
+				modifiers.add(STATS[previous[at]], getFloat(at + 1), (previous[at + 2] - tick) * modifierSystem.getStep());
+			}
+			modifierSystem.restart(entity);
+		}
+		if (moved && physics != null) {
+			physics.getStore().pull(entity);
+		}
+		StateComponent state = sm.get(entity);
+		if (state != null && (flags & HAS_STATE) != 0) {
+			state.set(previous[base + STATE]);
+		}
+		if (timeouts != null && tom.has(entity) && (flags & HAS_TIMEOUT) != 0) {
+			timeouts.reschedule(entity, previous[base + TIMEOUT] - tick);
+		}
+	}
+
+	private void grow() {
+		int[] generations = new int[this.generations.length * 2];
+		System.arraycopy(this.generations, 0, generations, 0, this.generations.length);
+		this.generations = generations;
+		frame = Arrays.copyOf(frame, generations.length * RECORD);
+		previous = Arrays.copyOf(previous, generations.length * RECORD);
+	}
+
+	private int expiry(long remaining) {
+		return (int) Math.min(tick + remaining, Integer.MAX_VALUE);
+	}
+
+	private void clear(int base, int from, int to) {
+		Arrays.fill(frame, base + from, base + to, 0);
+	}
+
+	private void putFloat(int index, float value) {
+		frame[index] = Float.floatToRawIntBits(value);
+	}
+
+	private float getFloat(int index) {
+		return Float.intBitsToFloat(previous[index]);
+	}
+}
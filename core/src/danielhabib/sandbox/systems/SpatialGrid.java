@@ -0,0 +1,155 @@
+package danielhabib.sandbox.systems;
+
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.LongMap;
+
+/**
+ * Uniform grid in world units. Each {@link Handle} remembers the cells it
+ * covers, so moving inside the same cells costs nothing and queries only
+ * visit the cells under the queried rectangle. Cells that empty out are
+ * kept for the next cell entered, so wandering around allocates nothing.
+ */
+public class SpatialGrid<T> {
+
+	public static class Handle<T> {
+		public final T value;
+		int minX, minY, maxX, maxY;
+		boolean placed;
+		int stamp;
+
+		public Handle(T value) {
+			this.value = value;
+		}
+
+		public boolean isStamped(int stamp) {
+			return this.stamp == stamp;
+		}
+	}
+
+	private final float cellSize;
+	private final LongMap<Array<Handle<T>>> cells = new LongMap<Array<Handle<T>>>();
+	private final Array<Array<Handle<T>>> free = new Array<Array<Handle<T>>>(false, 16);
+	private int size;
+
+	public SpatialGrid(float cellSize) {
+		this.cellSize = cellSize;
+	}
+
+	public void update(Handle<T> handle, float x, float y, float width, float height) {
+		int minX = cell(x);
+		int minY = cell(y);
+		int maxX = cell(x + width);
+		int maxY = cell(y + height);
+		if (handle.placed) {
+			if (minX == handle.minX && minY == handle.minY && maxX == handle.maxX && maxY == handle.maxY) {
+				return;
+			}
+			unlink(handle);
+		} else {
+			handle.placed = true;
+			size++;
+		}
+		handle.minX = minX;
+		handle.minY = minY;
+		handle.maxX = maxX;
+		handle.maxY = maxY;
+		for (int cx = minX; cx <= maxX; cx++) {
+			for (int cy = minY; cy <= maxY; cy++) {
+				long key = key(cx, cy);
+				Array<Handle<T>> cell = cells.get(key);
+				if (cell == null) {
+					cell = free.size > 0 ? free.pop() : new Array<Handle<T>>(false, 8);
+					cells.put(key, cell);
+				}
+				cell.add(handle);
+			}
+		}
+	}
+
+	public void remove(Handle<T> handle) {
+		if (!handle.placed) {
+			return;
+		}
+		unlink(handle);
+		handle.placed = false;
+		size--;
+	}
+
+	/**
+	 * Stamps every handle touching the rectangle with {@code stamp} and
+	 * returns how many distinct handles were stamped. Pass a fresh, non-zero
+	 * stamp per query.
+	 */
+	public int query(float x, float y, float width, float height, int stamp) {
+		return query(x, y, width, height, stamp, null);
+	}
+
+	public int query(float x, float y, float width, float height, int stamp, Array<T> out) {
+		int found = 0;
+		int maxX = cell(x + width);
+		int maxY = cell(y + height);
+		for (int cx = cell(x); cx <= maxX; cx++) {
+			for (int cy = cell(y); cy <= maxY; cy++) {
+				Array<Handle<T>> cell = cells.get(key(cx, cy));
+				if (cell == null) {
+					continue;
+				}
+				for (int i = 0, n = cell.size; i < n; i++) {
+					Handle<T> handle = cell.get(i);
+					if (handle.stamp != stamp) {
+						handle.stamp = stamp;
+						found++;
+						if (out != null) {
+							out.add(handle.value);
+						}
+					}
+				}
+			}
+		}
+		return found;
+	}
+
+	public int size() {
+		return size;
+	}
+
+	public float getCellSize() {
+		return cellSize;
+	}
+
+	/** Removes every handle, which may then be placed again or reused. */
+	public void clear() {
+		for (Array<Handle<T>> cell : cells.values()) {
+			for (int i = 0; i < cell.size; i++) {
+				Handle<T> handle = cell.get(i);
+				handle.placed = false;
+				handle.minX = handle.minY = handle.maxX = handle.maxY = 0;
+			}
+			cell.clear();
+			free.add(cell);
+		}
+		cells.clear();
+		size = 0;
+	}
+
+	private void unlink(Handle<T> handle) {
+		for (int cx = handle.minX; cx <= handle.maxX; cx++) {
+			for (int cy = handle.minY; cy <= handle.maxY; cy++) {
+				long key = key(cx, cy);
+				Array<Handle<T>> cell = cells.get(key);
+				if (cell != null && cell.removeValue(handle, true) && cell.size == 0) {
+					cells.remove(key);
+					free.add(cell);
+				}
+			}
+		}
+	}
+
+	private int cell(float coordinate) {
+		return (int) Math.floor(coordinate / cellSize);
+	}
+
+	private static long key(int cx, int cy) {
+		return ((long) cx << 32) | (cy & 0xffffffffL);
+	}
+}
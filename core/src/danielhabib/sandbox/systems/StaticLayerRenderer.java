@@ -0,0 +1,129 @@
+package danielhabib.sandbox.systems;
+
+import com.badlogic.gdx.graphics.OrthographicCamera;
+import com.badlogic.gdx.graphics.g2d.SpriteCache;
+import com.badlogic.gdx.graphics.g2d.TextureRegion;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.utils.Disposable;
+
+import danielhabib.factory.StaticLayer;
+
+/**
+ * Draws a {@link StaticLayer} from one {@link SpriteCache} cache per chunk.
+ * Geometry is only rebuilt for chunks the layer flags dirty; a chunk that
+ * grows past what it was first built with forces a full rebuild.
+ */
+public class StaticLayerRenderer implements Disposable {
+	private final StaticLayer layer;
+	private final int[] cacheIds;
+	private final int[] built;
+	private SpriteCache cache;
+	private int capacity;
+	private int drawnChunks;
+
+	public StaticLayerRenderer(StaticLayer layer) {
+		this.layer = layer;
+		int chunks = layer.getChunksX() * layer.getChunksY();
+		cacheIds = new int[chunks];
+		built = new int[chunks];
+		rebuildAll();
+	}
+
+	public void render(OrthographicCamera cam) {
+		if (layer.isDirty()) {
+			rebuildDirty();
+		}
+
+		float chunkWidth = StaticLayer.CHUNK_SIZE * layer.getTileWidth();
+		float chunkHeight = StaticLayer.CHUNK_SIZE * layer.getTileHeight();
+		float w = cam.viewportWidth * cam.zoom * 0.5f;
+		float h = cam.viewportHeight * cam.zoom * 0.5f;
+		int minX = Math.max(0, MathUtils.floor((cam.position.x - w) / chunkWidth));
+		int minY = Math.max(0, MathUtils.floor((cam.position.y - h) / chunkHeight));
+		int maxX = Math.min(layer.getChunksX() - 1, MathUtils.floor((cam.position.x + w) / chunkWidth));
+		int maxY = Math.min(layer.getChunksY() - 1, MathUtils.floor((cam.position.y + h) / chunkHeight));
+
+		drawnChunks = 0;
+		cache.setProjectionMatrix(cam.combined);
+		cache.begin();
+		for (int cy = minY; cy <= maxY; cy++) {
+			for (int cx = minX; cx <= maxX; cx++) {
+				int chunk = cy * layer.getChunksX() + cx;
+				if (cacheIds[chunk] >= 0) {
+					cache.draw(cacheIds[chunk]);
+					drawnChunks++;
+				}
+			}
+		}
+		cache.end();
+	}
+
+	public int getDrawnChunks() {
+		return drawnChunks;
+	}
+
+	@Override
+	public void dispose() {
+		if (cache != null) {
+			cache.dispose();
+		}
+	}
+
+	private void rebuildDirty() {
+		for (int chunk = 0; chunk < cacheIds.length; chunk++) {
+			if (layer.isDirty(chunk) && layer.count(chunk) > built[chunk]) {
+				rebuildAll();
+				return;
+			}
+		}
+		for (int chunk = 0; chunk < cacheIds.length; chunk++) {
+			if (layer.isDirty(chunk) && cacheIds[chunk] >= 0) {
+				cache.beginCache(cacheIds[chunk]);
+				addTiles(chunk);
+				cache.endCache();
+			}
+		}
+		layer.clean();
+	}
+
+	private void rebuildAll() {
+		int total = layer.count();
+		if (cache == null || total > capacity) {
+			dispose();
+			capacity = Math.max(1, total + total / 4);
+			cache = new SpriteCache(capacity, false);
+		} else {
+			cache.clear();
+		}
+		for (int chunk = 0; chunk < cacheIds.length; chunk++) {
+			built[chunk] = layer.count(chunk);
+			if (built[chunk] == 0) {
+				cacheIds[chunk] = -1;
+				continue;
+			}
+			cache.beginCache();
+			addTiles(chunk);
+			cacheIds[chunk] = cache.endCache();
+		}
+		layer.clean();
+	}
+
+	private void addTiles(int chunk) {
+		int startX = (chunk % layer.getChunksX()) * StaticLayer.CHUNK_SIZE;
+		int startY = (chunk / layer.getChunksX()) * StaticLayer.CHUNK_SIZE;
+		int endX = Math.min(startX + StaticLayer.CHUNK_SIZE, layer.getWidth());
+		int endY = Math.min(startY + StaticLayer.CHUNK_SIZE, layer.getHeight());
+		float tileWidth = layer.getTileWidth();
+		float tileHeight = layer.getTileHeight();
+		for (int y = startY; y < endY; y++) {
+			for (int x = startX; x < endX; x++) {
+				TiledMapTile tile = layer.getTile(x, y);
+				if (tile != null) {
+					TextureRegion region = tile.getTextureRegion();
+					cache.add(region, x * tileWidth, y * tileHeight, tileWidth, tileHeight);
+				}
+			}
+		}
+	}
+}
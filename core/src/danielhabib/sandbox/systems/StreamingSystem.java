@@ -0,0 +1,67 @@
+package danielhabib.sandbox.systems;
+
+import com.badlogic.ashley.core.ComponentMapper;
+import com.badlogic.ashley.core.Engine;
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.EntitySystem;
+import com.badlogic.ashley.core.Family;
+import com.badlogic.ashley.utils.ImmutableArray;
+import com.badlogic.gdx.math.Vector3;
+
+import danielhabib.factory.WorldStreamer;
+import danielhabib.sandbox.components.CameraComponent;
+import danielhabib.sandbox.components.SnakeComponent;
+import danielhabib.sandbox.components.TransformComponent;
+
+/**
+ * Streams a {@link WorldStreamer} around every camera and every snake. With
+ * neither in the engine nothing is streamed in or out.
+ */
+public class StreamingSystem extends EntitySystem implements ScheduledSystem {
+	private static final Family cameras = Family.all(CameraComponent.class).get();
+	private static final Family snakes = Family.all(SnakeComponent.class, TransformComponent.class).get();
+
+	private final WorldStreamer streamer;
+	private ImmutableArray<Entity> cameraEntities;
+	private ImmutableArray<Entity> snakeEntities;
+
+	private ComponentMapper<CameraComponent> cm = ComponentMapper.getFor(CameraComponent.class);
+	private ComponentMapper<TransformComponent> tm = ComponentMapper.getFor(TransformComponent.class);
+
+	public StreamingSystem(WorldStreamer streamer) {
+		this.streamer = streamer;
+	}
+
+	@Override
+	public void addedToEngine(Engine engine) {
+		cameraEntities = engine.getEntitiesFor(cameras);
+		snakeEntities = engine.getEntitiesFor(snakes);
+	}
+
+	@Override
+	public void removedFromEngine(Engine engine) {
+		streamer.clear();
+	}
+
+	@Override
+	public void update(float deltaTime) {
+		if (cameraEntities.size() == 0 && snakeEntities.size() == 0) {
+			return;
+		}
+		for (int i = 0; i < cameraEntities.size(); i++) {
+			Vector3 position = cm.get(cameraEntities.get(i)).camera.position;
+			streamer.addFocus(position.x, position.y);
+		}
+		for (int i = 0; i < snakeEntities.size(); i++) {
+			Vector3 position = tm.get(snakeEntities.get(i)).pos;
+			streamer.addFocus(position.x, position.y);
+		}
+		streamer.update();
+	}
+
+	@Override
+	public void declareAccess(SystemAccess access) {
+		// builders may create any component
+		access.exclusive();
+	}
+}
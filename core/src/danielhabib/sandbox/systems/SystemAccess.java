@@ -0,0 +1,51 @@
+package danielhabib.sandbox.systems;
+
+import com.badlogic.ashley.core.Component;
+import com.badlogic.ashley.core.ComponentType;
+import com.badlogic.gdx.utils.Bits;
+
+/**
+ * What a {@link ScheduledSystem} touches, filled in by
+ * {@link ScheduledSystem#declareAccess}. Two systems conflict when one
+ * writes a component the other reads or writes, when both make structural
+ * changes, or when either is exclusive.
+ */
+public class SystemAccess {
+	private final Bits reads = new Bits();
+	private final Bits writes = new Bits();
+	private boolean structural;
+	private boolean exclusive;
+
+	@SafeVarargs
+	public final SystemAccess read(Class<? extends Component>... types) {
+		for (Class<? extends Component> type : types) {
+			reads.set(ComponentType.getIndexFor(type));
+		}
+		return this;
+	}
+
+	@SafeVarargs
+	public final SystemAccess write(Class<? extends Component>... types) {
+		for (Class<? extends Component> type : types) {
+			writes.set(ComponentType.getIndexFor(type));
+		}
+		return this;
+	}
+
+	/** Adds or removes entities or components while updating. */
+	public SystemAccess structural() {
+		structural = true;
+		return this;
+	}
+
+	/** Runs alone, e.g. because it calls code that touches anything. */
+	public SystemAccess exclusive() {
+		exclusive = true;
+		return this;
+	}
+
+	public boolean conflicts(SystemAccess other) {
+		return exclusive || other.exclusive || (structural && other.structural) || writes.intersects(other.writes)
+				|| writes.intersects(other.reads) || reads.intersects(other.writes);
+	}
+}
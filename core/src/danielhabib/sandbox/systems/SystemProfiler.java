@@ -0,0 +1,293 @@
+package danielhabib.sandbox.systems;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import com.badlogic.ashley.core.Engine;
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.EntityListener;
+import com.badlogic.ashley.core.EntitySystem;
+import com.badlogic.ashley.systems.IteratingSystem;
+import com.badlogic.ashley.utils.ImmutableArray;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+/**
+ * Measures every system of an engine, each tick: wall time, bytes allocated
+ * (see {@link AllocationCounter}) and entities iterated, plus the entities
+ * added and removed and the time the entity listeners took for them.
+ *
+ * Ashley has no hook around a system's update, so {@link #attach} turns the
+ * processing systems off and adds one system that updates them itself, in
+ * the same order. Their component and entity changes are then applied once
+ * after all of them, as under a {@link SystemScheduler}, and measured as a
+ * section of their own. {@link #detach} gives the engine its systems back,
+ * so a profiler that is off costs nothing. Systems added, or turned on or
+ * off, after attaching are not followed.
+ */
+public class SystemProfiler {
+	private final Array<Section> sections = new Array<Section>();
+	private final AllocationCounter allocations;
+	private final Driver driver = new Driver();
+	private final End end = new End();
+	/** The entity changes the systems made, applied by Ashley after the driver. */
+	private final Section changes = new Section("EntityChanges", end);
+	private Engine engine;
+	private Section current;
+	private long start;
+	private long startBytes;
+	private long listenerStart;
+	private long tick;
+	private long tickStart;
+	private long windowTicks;
+	private long tickNanos;
+	private long windowNanos;
+	private Writer csv;
+	private final StringBuilder line = new StringBuilder();
+
+	/** Runs before any other listener. */
+	private final EntityListener first = new EntityListener() {
+		@Override
+		public void entityAdded(Entity entity) {
+			if (current != null) {
+				current.added++;
+				listenerStart = System.nanoTime();
+			}
+		}
+
+		@Override
+		public void entityRemoved(Entity entity) {
+			if (current != null) {
+				current.removed++;
+				listenerStart = System.nanoTime();
+			}
+		}
+	};
+
+	/** Runs after every other listener. */
+	private final EntityListener last = new EntityListener() {
+		@Override
+		public void entityAdded(Entity entity) {
+			if (current != null) {
+				current.listenerNanos += System.nanoTime() - listenerStart;
+			}
+		}
+
+		@Override
+		public void entityRemoved(Entity entity) {
+			if (current != null) {
+				current.listenerNanos += System.nanoTime() - listenerStart;
+			}
+		}
+	};
+
+	public SystemProfiler() {
+		this(AllocationCounter.NONE);
+	}
+
+	public SystemProfiler(AllocationCounter allocations) {
+		this.allocations = allocations;
+	}
+
+	/** One system's numbers: for the last tick, and summed since {@link #clearWindow}. */
+	public static class Section {
+		public final String name;
+		public final EntitySystem system;
+		public long nanos;
+		public long bytes;
+		/** Entities of an {@link IteratingSystem}, -1 for other systems. */
+		public int entities;
+		public int added;
+		public int removed;
+		public long listenerNanos;
+
+		public long windowNanos;
+		public long maxNanos;
+		public long windowBytes;
+		public long windowListenerNanos;
+		public long windowAdded;
+		public long windowRemoved;
+
+		Section(String name, EntitySystem system) {
+			this.name = name;
+			this.system = system;
+		}
+	}
+
+	/** Starts measuring the systems of the engine, from its next update. */
+	public void attach(Engine engine) {
+		if (this.engine != null) {
+			detach();
+		}
+		this.engine = engine;
+		sections.clear();
+		ImmutableArray<EntitySystem> systems = engine.getSystems();
+		for (int i = 0; i < systems.size(); i++) {
+			EntitySystem system = systems.get(i);
+			if (system.checkProcessing()) {
+				system.setProcessing(false);
+				sections.add(new Section(system.getClass().getSimpleName(), system));
+			}
+		}
+		sections.add(changes);
+		engine.addSystem(driver);
+		engine.addSystem(end);
+		engine.addEntityListener(Integer.MIN_VALUE, first);
+		engine.addEntityListener(Integer.MAX_VALUE, last);
+		clearWindow();
+	}
+
+	/** Turns the systems back on, and closes the CSV, if any. */
+	public void detach() {
+		if (engine == null) {
+			return;
+		}
+		engine.removeSystem(driver);
+		engine.removeSystem(end);
+		for (int i = 0; i < sections.size; i++) {
+			if (sections.get(i) != changes) {
+				sections.get(i).system.setProcessing(true);
+			}
+		}
+		engine.removeEntityListener(first);
+		engine.removeEntityListener(last);
+		engine = null;
+		current = null;
+		setCsv(null);
+	}
+
+	public boolean isAttached() {
+		return engine != null;
+	}
+
+	/**
+	 * Streams a line per system and tick to the writer, as
+	 * {@code tick,system,nanos,bytes,entities,added,removed,listenerNanos};
+	 * null closes the previous one.
+	 */
+	public void setCsv(Writer csv) {
+		if (this.csv != null) {
+			try {
+				this.csv.close();
+			} catch (IOException ex) {
+				throw new GdxRuntimeException("Error closing profile", ex);
+			}
+		}
+		this.csv = csv;
+		if (csv != null) {
+			write("tick,system,nanos,bytes,entities,added,removed,listenerNanos\n");
+		}
+	}
+
+	public Array<Section> getSections() {
+		return sections;
+	}
+
+	/** Wall time of the last tick, from the first system to the end of the last. */
+	public long getTickNanos() {
+		return tickNanos;
+	}
+
+	/** Ticks summed in the sections since {@link #clearWindow}. */
+	public long getWindowTicks() {
+		return windowTicks;
+	}
+
+	public long getWindowNanos() {
+		return windowNanos;
+	}
+
+	public void clearWindow() {
+		windowTicks = 0;
+		windowNanos = 0;
+		for (Section section : sections) {
+			section.windowNanos = section.maxNanos = section.windowBytes = 0;
+			section.windowListenerNanos = section.windowAdded = section.windowRemoved = 0;
+		}
+	}
+
+	private void mark(Section next) {
+		long now = System.nanoTime();
+		long bytes = allocations.get();
+		if (current != null) {
+			current.nanos = now - start;
+			current.bytes = bytes < 0 ? -1 : bytes - startBytes;
+		} else {
+			tickStart = now;
+		}
+		if (next != null) {
+			next.nanos = next.bytes = next.listenerNanos = 0;
+			next.added = next.removed = 0;
+			next.entities = next.system instanceof IteratingSystem
+					? ((IteratingSystem) next.system).getEntities().size() : -1;
+		}
+		current = next;
+		if (next == null) {
+			tickNanos = now - tickStart;
+			endTick();
+		}
+		// after the bookkeeping, so it is not counted in the next system
+		start = System.nanoTime();
+		startBytes = allocations.get();
+	}
+
+	private void endTick() {
+		tick++;
+		windowTicks++;
+		windowNanos += tickNanos;
+		for (int i = 0; i < sections.size; i++) {
+			Section section = sections.get(i);
+			section.windowNanos += section.nanos;
+			section.maxNanos = Math.max(section.maxNanos, section.nanos);
+			section.windowBytes += Math.max(0, section.bytes);
+			section.windowListenerNanos += section.listenerNanos;
+			section.windowAdded += section.added;
+			section.windowRemoved += section.removed;
+			if (csv != null) {
+				line.setLength(0);
+				line.append(tick).append(',').append(section.name).append(',').append(section.nanos).append(',')
+						.append(section.bytes).append(',').append(section.entities).append(',').append(section.added)
+						.append(',').append(section.removed).append(',').append(section.listenerNanos).append('\n');
+				write(line);
+			}
+		}
+	}
+
+	private void write(CharSequence text) {
+		try {
+			csv.append(text);
+		} catch (IOException ex) {
+			throw new GdxRuntimeException("Error writing profile", ex);
+		}
+	}
+
+	/** Updates the measured systems, first of all. */
+	private class Driver extends EntitySystem {
+		Driver() {
+			super(Integer.MIN_VALUE);
+		}
+
+		@Override
+		public void update(float deltaTime) {
+			for (int i = 0; i < sections.size; i++) {
+				Section section = sections.get(i);
+				mark(section);
+				if (section != changes) {
+					section.system.update(deltaTime);
+				}
+			}
+		}
+	}
+
+	/** Ends the tick, once Ashley applied the changes of the driven systems. */
+	private class End extends EntitySystem {
+		End() {
+			super(Integer.MAX_VALUE);
+		}
+
+		@Override
+		public void update(float deltaTime) {
+			mark(null);
+		}
+	}
+}
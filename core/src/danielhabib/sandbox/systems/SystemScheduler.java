@@ -0,0 +1,250 @@
+package danielhabib.sandbox.systems;
+
+import java.util.Comparator;
+
+import com.badlogic.ashley.core.Engine;
+import com.badlogic.ashley.core.EntitySystem;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+
+import danielhabib.sandbox.components.GeneralCallback;
+
+/**
+ * Runs a group of systems on a worker pool. Systems are ordered by priority
+ * like in the engine; a system waits for every earlier system it conflicts
+ * with (see {@link SystemAccess}), the others run in the same wave, in
+ * parallel. The scheduler is itself one system of the engine, so component
+ * and entity changes made by its systems are still applied by Ashley once the
+ * engine update is over. Callbacks that must not run on a worker are
+ * {@link #defer deferred} to the end of the scheduler update, on the engine
+ * thread.
+ *
+ * The waves are planned again whenever a system is added. Scheduled systems
+ * are added to the engine with processing off, so the engine only runs them
+ * through the scheduler. The workers take the tasks of a wave from an array
+ * under the scheduler's lock, so a tick allocates nothing; {@link #dispose}
+ * stops them.
+ */
+public class SystemScheduler extends EntitySystem {
+	private final Array<EntitySystem> systems = new Array<EntitySystem>();
+	private final Array<Array<Task>> waves = new Array<Array<Task>>();
+	private final Array<GeneralCallback> deferred = new Array<GeneralCallback>();
+	private final Array<GeneralCallback> running = new Array<GeneralCallback>();
+	private final Thread[] workers;
+	/** Tasks of the current wave no worker took yet. */
+	private final Array<Task> queue = new Array<Task>(false, 16);
+	private boolean dirty;
+	private boolean stopped;
+	private int pending;
+	private Throwable failure;
+
+	public SystemScheduler() {
+		this(Math.max(1, Runtime.getRuntime().availableProcessors() - 1));
+	}
+
+	public SystemScheduler(int workers) {
+		this.workers = new Thread[workers];
+		for (int i = 0; i < workers; i++) {
+			this.workers[i] = new Thread(new Runnable() {
+				@Override
+				public void run() {
+					work();
+				}
+			}, "systems-" + i);
+			this.workers[i].setDaemon(true);
+			this.workers[i].start();
+		}
+	}
+
+	public void add(EntitySystem system) {
+		systems.add(system);
+		system.setProcessing(false);
+		if (getEngine() != null) {
+			getEngine().addSystem(system);
+		}
+		dirty = true;
+	}
+
+	@Override
+	public void addedToEngine(Engine engine) {
+		for (EntitySystem system : systems) {
+			engine.addSystem(system);
+		}
+		dirty = true;
+	}
+
+	@Override
+	public void removedFromEngine(Engine engine) {
+		for (EntitySystem system : systems) {
+			engine.removeSystem(system);
+		}
+	}
+
+	/** Stops the worker threads; the scheduler cannot update anymore. */
+	public void dispose() {
+		synchronized (this) {
+			stopped = true;
+			notifyAll();
+		}
+	}
+
+	public boolean schedules(EntitySystem system) {
+		return systems.contains(system, true);
+	}
+
+	/**
+	 * Runs the callback on the engine thread once every scheduled system is
+	 * done with this update. Safe to call from any thread.
+	 */
+	public void defer(GeneralCallback callback) {
+		synchronized (deferred) {
+			deferred.add(callback);
+		}
+	}
+
+	/** Number of waves the systems are split in, 1 meaning all in parallel. */
+	public int getWaveCount() {
+		if (dirty) {
+			plan();
+		}
+		return waves.size;
+	}
+
+	@Override
+	public void update(float deltaTime) {
+		if (dirty) {
+			plan();
+		}
+		for (Array<Task> wave : waves) {
+			run(wave, deltaTime);
+		}
+
+		synchronized (deferred) {
+			running.addAll(deferred);
+			deferred.clear();
+		}
+		for (GeneralCallback callback : running) {
+			callback.execute();
+		}
+		running.clear();
+	}
+
+	private void run(Array<Task> wave, float deltaTime) {
+		synchronized (this) {
+			if (stopped) {
+				throw new GdxRuntimeException("Scheduler was disposed");
+			}
+			pending = wave.size - 1;
+			failure = null;
+			for (int i = 1; i < wave.size; i++) {
+				Task task = wave.get(i);
+				task.deltaTime = deltaTime;
+				queue.add(task);
+			}
+			notifyAll();
+		}
+		// the engine thread takes the first one instead of waiting idle
+		Throwable error = null;
+		try {
+			wave.get(0).system.update(deltaTime);
+		} catch (Throwable t) {
+			error = t;
+		}
+		synchronized (this) {
+			while (pending > 0) {
+				try {
+					wait();
+				} catch (InterruptedException e) {
+					Thread.currentThread().interrupt();
+					throw new GdxRuntimeException(e);
+				}
+			}
+			if (error == null) {
+				error = failure;
+			}
+		}
+		if (error != null) {
+			throw new GdxRuntimeException("Scheduled system failed", error);
+		}
+	}
+
+	/** Runs tasks as they are queued, until disposed. */
+	private void work() {
+		while (true) {
+			Task task;
+			synchronized (this) {
+				while (queue.size == 0 && !stopped) {
+					try {
+						wait();
+					} catch (InterruptedException e) {
+						return;
+					}
+				}
+				if (stopped) {
+					return;
+				}
+				task = queue.pop();
+			}
+			task.run();
+		}
+	}
+
+	/** Levels systems: each goes one wave after the last one it conflicts with. */
+	private void plan() {
+		Array<EntitySystem> ordered = new Array<EntitySystem>(systems);
+		ordered.sort(new Comparator<EntitySystem>() {
+			@Override
+			public int compare(EntitySystem a, EntitySystem b) {
+				return a.priority > b.priority ? 1 : (a.priority == b.priority) ? 0 : -1;
+			}
+		});
+
+		SystemAccess[] access = new SystemAccess[ordered.size];
+		int[] level = new int[ordered.size];
+		waves.clear();
+		for (int j = 0; j < ordered.size; j++) {
+			EntitySystem system = ordered.get(j);
+			access[j] = new SystemAccess();
+			if (system instanceof ScheduledSystem) {
+				((ScheduledSystem) system).declareAccess(access[j]);
+			} else {
+				access[j].exclusive();
+			}
+			for (int i = 0; i < j; i++) {
+				if (access[i].conflicts(access[j])) {
+					level[j] = Math.max(level[j], level[i] + 1);
+				}
+			}
+			while (waves.size <= level[j]) {
+				waves.add(new Array<Task>());
+			}
+			waves.get(level[j]).add(new Task(system));
+		}
+		dirty = false;
+	}
+
+	private class Task {
+		final EntitySystem system;
+		float deltaTime;
+
+		Task(EntitySystem system) {
+			this.system = system;
+		}
+
+		void run() {
+			Throwable error = null;
+			try {
+				system.update(deltaTime);
+			} catch (Throwable t) {
+				error = t;
+			}
+			synchronized (SystemScheduler.this) {
+				if (error != null && failure == null) {
+					failure = error;
+				}
+				pending--;
+				SystemScheduler.this.notifyAll();
+			}
+		}
+	}
+}
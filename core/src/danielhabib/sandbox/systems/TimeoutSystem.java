@@ -1,36 +1,154 @@
 package danielhabib.sandbox.systems;
 
+import com.badlogic.ashley.core.ComponentMapper;
+import com.badlogic.ashley.core.Engine;
 import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.EntityListener;
+import com.badlogic.ashley.core.EntitySystem;
 import com.badlogic.ashley.core.Family;
-import com.badlogic.ashley.systems.IteratingSystem;
-import com.badlogic.gdx.utils.ArrayMap;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.ObjectMap;
 
+import danielhabib.factory.Parameters;
 import danielhabib.sandbox.components.TimeoutComponent;
+import danielhabib.sandbox.events.TimeoutEvent;
 
-public class TimeoutSystem extends IteratingSystem {
+/**
+ * Fires the callback of a {@link TimeoutComponent} once its timeout has
+ * passed, then removes the component. The deadline is taken when the
+ * component joins the engine and kept in a {@link TimingWheel} ticking at
+ * {@link Parameters#TICK_RATE}, so waiting timeouts cost nothing per frame.
+ * With an {@link EventSystem} in the engine the callback runs when it
+ * flushes its {@link TimeoutEvent}s.
+ *
+ * A callback may add a timeout again. When that happens before Ashley
+ * applied the removal, e.g. in a callback deferred by a scheduler, the
+ * entity never leaves the family; entities that fired are checked for a
+ * new timeout on the next update instead.
+ */
+public class TimeoutSystem extends EntitySystem implements EntityListener, ScheduledSystem {
 	private static final Family family = Family.all(TimeoutComponent.class).get();
-	ArrayMap<Entity, Float> timePassed;
+
+	private final TimingWheel<Entity> wheel = new TimingWheel<Entity>();
+	private final ObjectMap<Entity, TimingWheel.Timer<Entity>> timers = new ObjectMap<Entity, TimingWheel.Timer<Entity>>();
+	private final Array<Entity> expired = new Array<Entity>(false, 16);
+	private final Array<Entity> fired = new Array<Entity>(false, 16);
+	private final float step;
+	private float accumulator;
+	private SystemScheduler scheduler;
+	private EventSystem events;
+
+	private ComponentMapper<TimeoutComponent> tm = ComponentMapper.getFor(TimeoutComponent.class);
 
 	public TimeoutSystem() {
-		super(family);
-		timePassed = new ArrayMap<Entity, Float>();
+		this(1 / Parameters.TICK_RATE);
+	}
+
+	/** @param step seconds per turn of the wheel's finest slot */
+	public TimeoutSystem(float step) {
+		this.step = step;
 	}
 
 	@Override
-	protected void processEntity(Entity entity, float deltaTime) {
-		if (timePassed.containsKey(entity)) {
-			timePassed.put(entity, timePassed.get(entity) + deltaTime);
-		} else {
-			timePassed.put(entity, deltaTime);
+	public void addedToEngine(Engine engine) {
+		for (Entity entity : engine.getEntitiesFor(family)) {
+			entityAdded(entity);
 		}
+		engine.addEntityListener(family, this);
+	}
 
-		Float time = timePassed.get(entity);
-		TimeoutComponent component = entity.getComponent(TimeoutComponent.class);
-		if (time > component.timeout) {
-			component.generalCallback.execute();
-			entity.remove(TimeoutComponent.class);
+	@Override
+	public void removedFromEngine(Engine engine) {
+		engine.removeEntityListener(this);
+		wheel.clear();
+		timers.clear();
+		fired.clear();
+	}
+
+	@Override
+	public void entityAdded(Entity entity) {
+		// strictly after the timeout, like when elapsed time was compared to it
+		long ticks = (long) Math.min((double) tm.get(entity).timeout / step + 1, Long.MAX_VALUE);
+		timers.put(entity, wheel.schedule(entity, ticks));
+	}
+
+	@Override
+	public void entityRemoved(Entity entity) {
+		fired.removeValue(entity, true);
+		TimingWheel.Timer<Entity> timer = timers.remove(entity);
+		if (timer != null) {
+			wheel.cancel(timer);
+		}
+	}
+
+	@Override
+	public void update(float deltaTime) {
+		scheduler = getEngine().getSystem(SystemScheduler.class);
+		if (scheduler != null && !scheduler.schedules(this)) {
+			scheduler = null;
 		}
+		events = getEngine().getSystem(EventSystem.class);
 
+		for (int i = 0; i < fired.size; i++) {
+			Entity entity = fired.get(i);
+			if (tm.has(entity) && !timers.containsKey(entity)) {
+				entityAdded(entity);
+			}
+		}
+		fired.clear();
+
+		accumulator += deltaTime;
+		while (accumulator >= step) {
+			accumulator -= step;
+			wheel.advance(expired);
+			for (int i = 0; i < expired.size; i++) {
+				fire(expired.get(i));
+			}
+			expired.clear();
+		}
+	}
+
+	/** Ticks until the entity's timeout fires, -1 if it has none waiting. */
+	public long getRemainingTicks(Entity entity) {
+		TimingWheel.Timer<Entity> timer = timers.get(entity);
+		return timer == null ? -1 : timer.getDeadline() - wheel.getNow();
+	}
+
+	/** Moves the entity's timeout to {@code ticks} from now, e.g. to rewind it. */
+	public void reschedule(Entity entity, long ticks) {
+		TimingWheel.Timer<Entity> timer = timers.remove(entity);
+		if (timer != null) {
+			wheel.cancel(timer);
+		}
+		timers.put(entity, wheel.schedule(entity, ticks));
+	}
+
+	/** Timeouts still waiting. */
+	public int getPendingCount() {
+		return wheel.size();
 	}
 
+	@Override
+	public void declareAccess(SystemAccess access) {
+		access.write(TimeoutComponent.class).structural();
+	}
+
+	private void fire(Entity entity) {
+		timers.remove(entity);
+		TimeoutComponent component = tm.get(entity);
+		if (component == null) {
+			return;
+		}
+		if (events != null) {
+			TimeoutEvent timeout = events.getBus().post(TimeoutEvent.class);
+			timeout.entity = entity;
+			timeout.callback = component.generalCallback;
+		} else if (scheduler != null) {
+			scheduler.defer(component.generalCallback);
+		} else {
+			component.generalCallback.execute();
+		}
+		entity.remove(TimeoutComponent.class);
+		fired.add(entity);
+	}
 }
@@ -0,0 +1,175 @@
+package danielhabib.sandbox.systems;
+
+import com.badlogic.gdx.utils.Array;
+
+/**
+ * Hierarchical timing wheel: {@link #LEVELS} wheels of {@link #SLOTS} slots,
+ * each slot of a wheel spanning a whole turn of the wheel below. A timer goes
+ * in the coarsest slot that still separates it from now and moves down a
+ * level each time that slot comes around, so scheduling, cancelling and
+ * expiring are O(1) and ticks without expiries touch a single slot.
+ *
+ * Deadlines further than the wheels reach wait in the farthest slot of the
+ * top wheel and are put back each time it comes around. Timer nodes are reused.
+ */
+public class TimingWheel<T> {
+	public static final int LEVELS = 4;
+	private static final int BITS = 6;
+	public static final int SLOTS = 1 << BITS;
+	private static final int MASK = SLOTS - 1;
+	private static final long RANGE = 1L << (BITS * LEVELS);
+
+	public static class Timer<T> {
+		T value;
+		long deadline;
+		Timer<T> prev, next;
+		int slot;
+		boolean scheduled;
+
+		public T getValue() {
+			return value;
+		}
+
+		public long getDeadline() {
+			return deadline;
+		}
+
+		/** False once it expired or was cancelled, when the node may be reused. */
+		public boolean isScheduled() {
+			return scheduled;
+		}
+	}
+
+	@SuppressWarnings("unchecked")
+	private final Timer<T>[] slots = (Timer<T>[]) new Timer<?>[LEVELS * SLOTS];
+	private Timer<T> free;
+	private long now;
+	private int size;
+
+	/** Schedules {@code value} to expire {@code ticks} ticks from now, at least one. */
+	public Timer<T> schedule(T value, long ticks) {
+		Timer<T> timer = free;
+		if (timer != null) {
+			free = timer.next;
+		} else {
+			timer = new Timer<T>();
+		}
+		timer.value = value;
+		timer.deadline = now + Math.max(1, Math.min(ticks, Long.MAX_VALUE - now));
+		timer.scheduled = true;
+		insert(timer);
+		size++;
+		return timer;
+	}
+
+	/** Drops a timer that has not expired yet; its node is reused. */
+	public void cancel(Timer<T> timer) {
+		if (!timer.scheduled) {
+			return;
+		}
+		unlink(timer);
+		recycle(timer);
+		size--;
+	}
+
+	/**
+	 * Moves one tick forward and adds the values whose deadline it is to
+	 * {@code expired}, in no particular order.
+	 */
+	public void advance(Array<T> expired) {
+		long tick = ++now;
+		int levels = 0;
+		while (levels < LEVELS - 1 && (tick & ((1L << (BITS * (levels + 1))) - 1)) == 0) {
+			levels++;
+		}
+		// coarse first, so what comes down from a level lands in slots not yet cascaded
+		for (int level = levels; level >= 1; level--) {
+			cascade(level, (int) (tick >>> (BITS * level)) & MASK);
+		}
+
+		int index = (int) tick & MASK;
+		Timer<T> timer = slots[index];
+		slots[index] = null;
+		while (timer != null) {
+			Timer<T> next = timer.next;
+			expired.add(timer.value);
+			recycle(timer);
+			size--;
+			timer = next;
+		}
+	}
+
+	public long getNow() {
+		return now;
+	}
+
+	/** Timers still waiting. */
+	public int size() {
+		return size;
+	}
+
+	public void clear() {
+		for (int i = 0; i < slots.length; i++) {
+			Timer<T> timer = slots[i];
+			slots[i] = null;
+			while (timer != null) {
+				Timer<T> next = timer.next;
+				recycle(timer);
+				timer = next;
+			}
+		}
+		size = 0;
+	}
+
+	private void cascade(int level, int index) {
+		int slot = level * SLOTS + index;
+		Timer<T> timer = slots[slot];
+		slots[slot] = null;
+		while (timer != null) {
+			Timer<T> next = timer.next;
+			insert(timer);
+			timer = next;
+		}
+	}
+
+	private void insert(Timer<T> timer) {
+		long delta = timer.deadline - now;
+		long deadline = timer.deadline;
+		if (delta >= RANGE) {
+			deadline = now + RANGE - 1;
+			delta = RANGE - 1;
+		}
+		int level = 0;
+		while (level < LEVELS - 1 && delta >= (1L << (BITS * (level + 1)))) {
+			level++;
+		}
+		int slot = level * SLOTS + ((int) (deadline >>> (BITS * level)) & MASK);
+		Timer<T> head = slots[slot];
+		timer.slot = slot;
+		timer.prev = null;
+		timer.next = head;
+		if (head != null) {
+			head.prev = timer;
+		}
+		slots[slot] = timer;
+	}
+
+	private void unlink(Timer<T> timer) {
+		if (timer.prev != null) {
+			timer.prev.next = timer.next;
+		} else {
+			slots[timer.slot] = timer.next;
+		}
+		if (timer.next != null) {
+			timer.next.prev = timer.prev;
+		}
+	}
+
+	private void recycle(Timer<T> timer) {
+		timer.value = null;
+		timer.scheduled = false;
+		timer.prev = null;
+		timer.next = free;
+		free = timer;
+	}
+}
@@ -0,0 +1,57 @@
+package danielhabib.sandbox.systems;
+
+import com.badlogic.ashley.core.ComponentMapper;
+import com.badlogic.ashley.core.Engine;
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.EntityListener;
+import com.badlogic.ashley.core.Family;
+import com.badlogic.ashley.systems.IteratingSystem;
+
+import danielhabib.sandbox.components.TransformComponent;
+
+/**
+ * Remembers every transform as it was before the tick, so rendering can
+ * interpolate between the last two ticks. Runs ahead of every other system.
+ */
+public class TransformHistorySystem extends IteratingSystem implements EntityListener, ScheduledSystem {
+	private static final Family family = Family.all(TransformComponent.class).get();
+	private ComponentMapper<TransformComponent> tm;
+
+	public TransformHistorySystem() {
+		super(family, Integer.MIN_VALUE);
+		tm = ComponentMapper.getFor(TransformComponent.class);
+	}
+
+	@Override
+	public void addedToEngine(Engine engine) {
+		super.addedToEngine(engine);
+		engine.addEntityListener(family, this);
+	}
+
+	@Override
+	public void removedFromEngine(Engine engine) {
+		engine.removeEntityListener(this);
+		super.removedFromEngine(engine);
+	}
+
+	@Override
+	public void entityAdded(Entity entity) {
+		processEntity(entity, 0);
+	}
+
+	@Override
+	public void entityRemoved(Entity entity) {
+	}
+
+	@Override
+	protected void processEntity(Entity entity, float deltaTime) {
+		TransformComponent t = tm.get(entity);
+		t.previousPos.set(t.pos);
+		t.previousRotation = t.rotation;
+	}
+
+	@Override
+	public void declareAccess(SystemAccess access) {
+		access.write(TransformComponent.class);
+	}
+}
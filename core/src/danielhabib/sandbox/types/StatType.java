@@ -0,0 +1,7 @@
+package danielhabib.sandbox.types;
+
+public enum StatType {
+	SPEED;
+
+	public static final int COUNT = values().length;
+}
@@ -0,0 +1,108 @@
+package danielhabib.sandbox.ui;
+
+import java.io.Writer;
+
+import com.badlogic.ashley.core.Engine;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.scenes.scene2d.Touchable;
+import com.badlogic.gdx.scenes.scene2d.ui.Label;
+import com.badlogic.gdx.scenes.scene2d.ui.Table;
+import com.badlogic.gdx.utils.Align;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import danielhabib.factory.Parameters;
+import danielhabib.sandbox.systems.AllocationCounter;
+import danielhabib.sandbox.systems.SystemProfiler;
+import danielhabib.sandbox.systems.SystemProfiler.Section;
+
+/**
+ * Where the ticks of an engine go, system by system, averaged over half a
+ * second: milliseconds per tick, the worst tick, kilobytes allocated per
+ * tick, entities and entities added and removed per second. Hidden, the
+ * profiler is detached and costs nothing.
+ */
+public class ProfilerOverlay extends Table {
+	private static final float REFRESH = 0.5f;
+
+	private final Engine engine;
+	private final SystemProfiler profiler;
+	private final Label label = UIFactory.newLabel();
+	private final StringBuilder text = new StringBuilder();
+	private float elapsed;
+
+	/** @param allocations counts the kilobytes, {@link AllocationCounter#NONE} shows 0 */
+	public ProfilerOverlay(Engine engine, AllocationCounter allocations) {
+		this.engine = engine;
+		profiler = new SystemProfiler(allocations);
+		setFillParent(true);
+		top().left().pad(10);
+		add(label);
+		label.setAlignment(Align.topLeft);
+		setVisible(false);
+		setTouchable(Touchable.disabled);
+	}
+
+	/** Shows and starts profiling, or hides and stops. */
+	public void toggle() {
+		if (profiler.isAttached()) {
+			profiler.detach();
+			setVisible(false);
+			return;
+		}
+		profiler.attach(engine);
+		if (Parameters.PROFILER_CSV) {
+			Writer csv = Gdx.files.local("profiles/" + TimeUtils.millis() + ".csv").writer(false, "UTF-8");
+			profiler.setCsv(csv);
+		}
+		label.setText("");
+		elapsed = 0;
+		setVisible(true);
+	}
+
+	/** Stops profiling, closing the CSV. */
+	public void dispose() {
+		profiler.detach();
+	}
+
+	@Override
+	public void act(float delta) {
+		super.act(delta);
+		if (!profiler.isAttached()) {
+			return;
+		}
+		elapsed += delta;
+		long ticks = profiler.getWindowTicks();
+		if (elapsed < REFRESH || ticks == 0) {
+			return;
+		}
+		text.setLength(0);
+		text.append("tick ").append(millis(profiler.getWindowNanos() / ticks)).append(" ms\n");
+		Array<Section> sections = profiler.getSections();
+		for (int i = 0; i < sections.size; i++) {
+			Section section = sections.get(i);
+			if (!section.system.checkProcessing() && section.windowNanos == 0) {
+				continue;
+			}
+			text.append(section.name).append("  ").append(millis(section.windowNanos / ticks)).append(" ms, max ")
+					.append(millis(section.maxNanos)).append(" ms, ").append(section.windowBytes / ticks / 1024)
+					.append(" KB");
+			if (section.entities >= 0) {
+				text.append(", ").append(section.entities).append(" entities");
+			}
+			if (section.windowAdded + section.windowRemoved > 0) {
+				text.append(", +").append(Math.round(section.windowAdded / elapsed)).append(" -")
+						.append(Math.round(section.windowRemoved / elapsed)).append("/s, listeners ")
+						.append(millis(section.windowListenerNanos / ticks)).append(" ms");
+			}
+			text.append('\n');
+		}
+		label.setText(text);
+		profiler.clearWindow();
+		elapsed = 0;
+	}
+
+	private static float millis(long nanos) {
+		return Math.round(nanos / 10000f) / 100f;
+	}
+}
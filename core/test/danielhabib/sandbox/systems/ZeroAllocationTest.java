@@ -0,0 +1,222 @@
+package danielhabib.sandbox.systems;
+
+import static org.junit.Assert.fail;
+import static org.junit.Assume.assumeTrue;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+
+import com.badlogic.ashley.core.Engine;
+import com.badlogic.ashley.core.Entity;
+import com.badlogic.ashley.core.PooledEngine;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessFiles;
+import com.badlogic.gdx.backends.headless.HeadlessNativesLoader;
+import com.badlogic.gdx.maps.tiled.TiledMapTile;
+import com.badlogic.gdx.utils.ArrayMap;
+
+import danielhabib.factory.AEntityBuilder;
+import danielhabib.factory.Parameters;
+import danielhabib.sandbox.Simulation;
+import danielhabib.sandbox.components.GeneralCallback;
+import danielhabib.sandbox.components.ModifierComponent;
+import danielhabib.sandbox.components.MovementComponent;
+import danielhabib.sandbox.components.PlatformComponent;
+import danielhabib.sandbox.components.RotationComponent;
+import danielhabib.sandbox.components.SnakeComponent;
+import danielhabib.sandbox.components.TimeoutComponent;
+import danielhabib.sandbox.components.TransformComponent;
+import danielhabib.sandbox.headless.NullGL;
+import danielhabib.sandbox.headless.ThreadAllocationCounter;
+import danielhabib.sandbox.systems.SystemProfiler.Section;
+import danielhabib.sandbox.types.PlatformType;
+import danielhabib.sandbox.types.StatType;
+
+/**
+ * Ticks a level after a warm-up and fails, naming the systems and bytes, if
+ * anything still allocates: garbage made every tick ends in GC pauses on
+ * phones. Every cell of the map becomes an entity that moves, rotates, runs
+ * into platforms and walls and keeps re-arming a short timeout and speed
+ * modifier, and a snake turns in circles, so every system has work to do.
+ * Only the engine thread is counted: under a scheduler, what the workers
+ * allocate is not.
+ *
+ * Runs interpreted, with -Xint as core/build.gradle passes it: escape
+ * analysis hides garbage the phones' runtimes do make, and deoptimizing
+ * compiled code now and then allocates on the thread by itself. Run from
+ * the assets folder.
+ */
+public class ZeroAllocationTest {
+	private static final String MAP = "map1.tmx";
+	/** Long enough for pools, maps and arrays to reach the size they keep. */
+	private static final int WARMUP_TICKS = 3000;
+	private static final int TICKS = 600;
+	private static final int WINDOWS = 3;
+	/** Seconds, so timers expire and are armed again many times a window. */
+	private static final float TIMEOUT = 0.25f;
+	private static final float MODIFIER = 0.2f;
+	private static final float TURN = 2;
+
+	private static final GeneralCallback nothing = new GeneralCallback() {
+		@Override
+		public void execute() {
+		}
+	};
+
+	@BeforeClass
+	public static void init() {
+		HeadlessNativesLoader.load();
+		Gdx.files = new HeadlessFiles();
+		Gdx.gl = Gdx.gl20 = NullGL.create();
+	}
+
+	@Test
+	public void simulation() {
+		assertTicksWithoutAllocating(create(false, false, false));
+	}
+
+	@Test
+	public void densePhysics() {
+		assertTicksWithoutAllocating(create(true, false, false));
+	}
+
+	@Test
+	public void snapshots() {
+		Simulation simulation = create(false, false, false);
+		simulation.engine.addSystem(new SnapshotSystem(Parameters.SNAPSHOT_SECONDS, 4 << 20));
+		assertTicksWithoutAllocating(simulation);
+	}
+
+	@Test
+	public void parallel() {
+		assertTicksWithoutAllocating(create(false, true, false));
+	}
+
+	/** Streamed around the snake, which stays in range: chunks streaming in build components. */
+	@Test
+	public void streaming() {
+		assertTicksWithoutAllocating(create(false, false, true));
+	}
+
+	private static Simulation create(boolean densePhysics, boolean parallel, boolean streaming) {
+		Simulation simulation = new Simulation(MAP, densePhysics, parallel, streaming);
+		ArrayMap<String, AEntityBuilder> builders = simulation.world.builders;
+		for (int i = 0; i < builders.size; i++) {
+			builders.setValue(i, new BusyEntityBuilder(simulation.engine));
+		}
+		simulation.create();
+		addSnake(simulation.engine, simulation.world.getWidth() / 2, simulation.world.getHeight() / 2);
+		return simulation;
+	}
+
+	/** A snake that turns left and sheds a cell for a new one every {@link #TURN} seconds. */
+	private static void addSnake(PooledEngine engine, int x, int y) {
+		final Entity entity = engine.createEntity();
+		entity.add(engine.createComponent(TransformComponent.class));
+		final SnakeComponent snake = engine.createComponent(SnakeComponent.class);
+		snake.place(x, y, 8);
+		entity.add(snake);
+		final TimeoutComponent turn = new TimeoutComponent(TURN, null);
+		turn.generalCallback = new GeneralCallback() {
+			@Override
+			public void execute() {
+				snake.turnX = -snake.dirY;
+				snake.turnY = snake.dirX;
+				snake.growth++;
+				snake.shrink(1);
+				entity.add(turn);
+			}
+		};
+		entity.add(turn);
+		engine.addEntity(entity);
+	}
+
+	/**
+	 * Fails with what each system allocated, on the first window of ticks
+	 * after the warm-up that allocated anything. Disposes the simulation.
+	 */
+	public static void assertTicksWithoutAllocating(Simulation simulation) {
+		AllocationCounter allocations = ThreadAllocationCounter.find();
+		assumeTrue("needs a VM that counts allocations per thread", allocations != AllocationCounter.NONE);
+		assumeTrue("needs -Xint", System.getProperty("java.vm.info", "").contains("interpreted"));
+		Engine engine = simulation.engine;
+		SystemProfiler profiler = new SystemProfiler(allocations);
+		profiler.attach(engine);
+		long total = 0;
+		int window;
+		try {
+			for (int i = 0; i < WARMUP_TICKS; i++) {
+				simulation.tick();
+			}
+			for (window = 0; window < WINDOWS; window++) {
+				profiler.clearWindow();
+				long before = allocations.get();
+				for (int i = 0; i < TICKS; i++) {
+					simulation.tick();
+				}
+				total = allocations.get() - before;
+				if (total != 0) {
+					break;
+				}
+			}
+		} finally {
+			profiler.detach();
+			simulation.dispose();
+		}
+		if (total == 0) {
+			return;
+		}
+
+		StringBuilder allocating = new StringBuilder();
+		for (Section section : profiler.getSections()) {
+			if (section.windowBytes > 0) {
+				allocating.append("\n  ").append(section.name).append(": ").append(section.windowBytes)
+						.append(" bytes");
+			}
+		}
+		fail(total + " bytes allocated in window " + (window + 1) + " of " + TICKS + " ticks, "
+				+ engine.getEntities().size() + " entities" + allocating);
+	}
+
+	/**
+	 * One static platform in four cells, the rest moving and rotating. Each
+	 * time their timeout fires they are sped up for a moment and the
+	 * timeout is armed again.
+	 */
+	private static class BusyEntityBuilder extends AEntityBuilder {
+		private int count;
+
+		BusyEntityBuilder(PooledEngine engine) {
+			super(engine);
+		}
+
+		@Override
+		protected Entity buildInternal(int x, int y, TiledMapTile tile) {
+			Entity entity = createEntity(x, y, (count % 7 - 3) * 0.5f, (count % 5 - 2) * 0.5f);
+			if (count++ % 4 == 0) {
+				entity.remove(MovementComponent.class);
+				entity.add(new PlatformComponent(PlatformType.WALL, nothing));
+			} else {
+				entity.add(new RotationComponent(90));
+				ModifierComponent modifiers = engine.createComponent(ModifierComponent.class);
+				modifiers.add(StatType.SPEED, 1.5f, MODIFIER);
+				entity.add(modifiers);
+				rearm(entity);
+			}
+			engine.addEntity(entity);
+			return entity;
+		}
+
+		private void rearm(final Entity entity) {
+			final TimeoutComponent timeout = new TimeoutComponent(TIMEOUT, null);
+			timeout.generalCallback = new GeneralCallback() {
+				@Override
+				public void execute() {
+					engine.getSystem(ModifierSystem.class).add(entity, StatType.SPEED, 1.5f, MODIFIER);
+					entity.add(timeout);
+				}
+			};
+			entity.add(timeout);
+		}
+	}
+}
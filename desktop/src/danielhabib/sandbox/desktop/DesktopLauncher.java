@@ -3,10 +3,11 @@ package danielhabib.sandbox.desktop;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplication;
 import com.badlogic.gdx.backends.lwjgl.LwjglApplicationConfiguration;
 import danielhabib.sandbox.SandboxGame;
+import danielhabib.sandbox.headless.ThreadAllocationCounter;
 
 public class DesktopLauncher {
 	public static void main (String[] arg) {
 		LwjglApplicationConfiguration config = new LwjglApplicationConfiguration();
-		new LwjglApplication(new SandboxGame(), config);
+		new LwjglApplication(new SandboxGame(ThreadAllocationCounter.find()), config);
 	}
 }
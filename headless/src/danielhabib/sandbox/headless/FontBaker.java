@@ -0,0 +1,147 @@
+package danielhabib.sandbox.headless;
+
+import java.io.IOException;
+import java.io.Writer;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.PixmapIO;
+import com.badlogic.gdx.graphics.g2d.BitmapFont.BitmapFontData;
+import com.badlogic.gdx.graphics.g2d.BitmapFont.Glyph;
+import com.badlogic.gdx.graphics.g2d.PixmapPacker;
+import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator;
+import com.badlogic.gdx.graphics.g2d.freetype.FreeTypeFontGenerator.FreeTypeFontParameter;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.StreamUtils;
+
+/**
+ * Usage: {@code FontBaker [font.ttf size ...]}. Renders each TrueType font
+ * at a size to an AngelCode bitmap font, {@code <name><size>.fnt} and its
+ * pages, next to it, so the game loads them like any bitmap font instead of
+ * running FreeType while it starts. Without arguments, bakes {@link #FONTS}.
+ */
+public class FontBaker {
+	/** The fonts the game uses: file, then size in pixels. */
+	public static final String[] FONTS = { "arial.ttf", "16" };
+	private static final int PAGE_SIZE = 256;
+
+	public static void main(String[] arg) {
+		LevelCompiler.init();
+		if (arg.length == 0) {
+			arg = FONTS;
+		}
+		for (int i = 0; i + 1 < arg.length; i += 2) {
+			FileHandle target = bake(arg[i], Integer.parseInt(arg[i + 1]));
+			System.out.println(arg[i] + " " + arg[i + 1] + "px -> " + target.path());
+		}
+	}
+
+	/** Bakes a font found by internal path; the files go next to it. */
+	public static FileHandle bake(String fontName, int size) {
+		FileHandle ttf = Gdx.files.internal(fontName);
+		// internal files are read only, but on the desktop they are plain files
+		FileHandle dir = new FileHandle(ttf.file().getAbsoluteFile().getParentFile());
+		String name = ttf.nameWithoutExtension() + size;
+
+		PixmapPacker packer = new PixmapPacker(PAGE_SIZE, PAGE_SIZE, Pixmap.Format.RGBA8888, 1, false);
+		FreeTypeFontGenerator generator = new FreeTypeFontGenerator(ttf);
+		try {
+			FreeTypeFontParameter parameter = new FreeTypeFontParameter();
+			parameter.size = size;
+			parameter.packer = packer;
+			BitmapFontData data = generator.generateData(parameter);
+
+			Array<PixmapPacker.Page> pages = packer.getPages();
+			String[] pageNames = new String[pages.size];
+			for (int i = 0; i < pages.size; i++) {
+				pageNames[i] = name + (pages.size > 1 ? "_" + i : "") + ".png";
+				PixmapIO.writePNG(dir.child(pageNames[i]), pages.get(i).getPixmap());
+			}
+			FileHandle fnt = dir.child(name + ".fnt");
+			write(data, ttf.nameWithoutExtension(), size, pageNames, fnt);
+			return fnt;
+		} finally {
+			generator.dispose();
+			packer.dispose();
+		}
+	}
+
+	/** Writes the font data in the AngelCode text format BitmapFont reads. */
+	static void write(BitmapFontData data, String face, int size, String[] pageNames, FileHandle file) {
+		Writer writer = file.writer(false, "UTF-8");
+		try {
+			StringBuilder out = new StringBuilder();
+			out.append("info face=\"").append(face).append("\" size=").append(size)
+					.append(" bold=0 italic=0 charset=\"\" unicode=0 stretchH=100 smooth=1 aa=1 padding=")
+					.append((int) data.padTop).append(',').append((int) data.padRight).append(',')
+					.append((int) data.padBottom).append(',').append((int) data.padLeft).append(" spacing=1,1\n");
+			int base = (int) (data.capHeight + (data.flipped ? -data.ascent : data.ascent));
+			out.append("common lineHeight=").append((int) data.lineHeight).append(" base=").append(base)
+					.append(" scaleW=").append(PAGE_SIZE).append(" scaleH=").append(PAGE_SIZE).append(" pages=")
+					.append(pageNames.length).append(" packed=0\n");
+			for (int i = 0; i < pageNames.length; i++) {
+				out.append("page id=").append(i).append(" file=\"").append(pageNames[i]).append("\"\n");
+			}
+
+			Array<Glyph> glyphs = new Array<Glyph>();
+			for (Glyph[] page : data.glyphs) {
+				if (page == null) {
+					continue;
+				}
+				for (Glyph glyph : page) {
+					if (glyph != null) {
+						glyphs.add(glyph);
+					}
+				}
+			}
+			out.append("chars count=").append(glyphs.size).append('\n');
+			int kernings = 0;
+			for (Glyph glyph : glyphs) {
+				int yoffset = data.flipped ? glyph.yoffset : -(glyph.height + glyph.yoffset);
+				out.append("char id=").append(glyph.id).append(" x=").append(glyph.srcX).append(" y=")
+						.append(glyph.srcY).append(" width=").append(glyph.width).append(" height=")
+						.append(glyph.height).append(" xoffset=").append(glyph.xoffset).append(" yoffset=")
+						.append(yoffset).append(" xadvance=").append(glyph.xadvance).append(" page=")
+						.append(glyph.page).append(" chnl=0\n");
+				kernings += kernings(glyph, null);
+			}
+			if (kernings > 0) {
+				out.append("kernings count=").append(kernings).append('\n');
+				for (Glyph glyph : glyphs) {
+					kernings(glyph, out);
+				}
+			}
+			writer.write(out.toString());
+		} catch (IOException ex) {
+			throw new GdxRuntimeException("Error writing " + file, ex);
+		} finally {
+			StreamUtils.closeQuietly(writer);
+		}
+	}
+
+	/** Counts the kerning pairs of the glyph, appending them when out is not null. */
+	private static int kernings(Glyph glyph, StringBuilder out) {
+		if (glyph.kerning == null) {
+			return 0;
+		}
+		int count = 0;
+		for (int page = 0; page < glyph.kerning.length; page++) {
+			byte[] amounts = glyph.kerning[page];
+			if (amounts == null) {
+				continue;
+			}
+			for (int i = 0; i < amounts.length; i++) {
+				if (amounts[i] != 0) {
+					count++;
+					if (out != null) {
+						out.append("kerning first=").append(glyph.id).append(" second=")
+								.append(page * amounts.length + i).append(" amount=").append(amounts[i]).append('\n');
+					}
+				}
+			}
+		}
+		return count;
+	}
+}
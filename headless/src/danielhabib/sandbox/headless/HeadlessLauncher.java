@@ -0,0 +1,35 @@
+package danielhabib.sandbox.headless;
+
+import com.badlogic.gdx.backends.headless.HeadlessApplication;
+import com.badlogic.gdx.backends.headless.HeadlessApplicationConfiguration;
+import com.badlogic.gdx.files.FileHandle;
+
+import danielhabib.sandbox.Replay;
+
+/**
+ * Usage: {@code HeadlessLauncher [level] [ticks]}. Runs forever when ticks is
+ * missing or 0.
+ *
+ * {@code HeadlessLauncher replay <file> [realtime]} plays a replay instead,
+ * as fast as it can or at its tick rate.
+ */
+public class HeadlessLauncher {
+	public static void main (String[] arg) {
+		HeadlessApplicationConfiguration config = new HeadlessApplicationConfiguration();
+		// no sleeping between frames: tick as fast as the CPU allows
+		config.renderInterval = 0;
+
+		if (arg.length > 1 && arg[0].equals("replay")) {
+			Replay replay = Replay.read(new FileHandle(arg[1]));
+			if (arg.length > 2 && arg[2].equals("realtime")) {
+				config.renderInterval = 1 / replay.getTickRate();
+			}
+			new HeadlessApplication(new HeadlessRuntime(replay), config);
+			return;
+		}
+
+		int level = arg.length > 0 ? Integer.parseInt(arg[0]) : 1;
+		long ticks = arg.length > 1 ? Long.parseLong(arg[1]) : 0;
+		new HeadlessApplication(new HeadlessRuntime(level, ticks), config);
+	}
+}
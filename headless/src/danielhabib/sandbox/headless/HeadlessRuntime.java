@@ -0,0 +1,85 @@
+package danielhabib.sandbox.headless;
+
+import com.badlogic.gdx.ApplicationAdapter;
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.utils.TimeUtils;
+
+import danielhabib.sandbox.Replay;
+import danielhabib.sandbox.Simulation;
+
+/**
+ * Ticks a {@link Simulation} once per frame of a headless application, with
+ * the fixed step and no frame pacing, and logs the tick rate it reaches.
+ * Given a {@link Replay}, it plays it on the map it was recorded on, stops
+ * after its last tick and checks the state ended the same.
+ */
+public class HeadlessRuntime extends ApplicationAdapter {
+	private static final String TAG = "headless";
+	private static final long REPORT_INTERVAL = 1000;
+
+	private final String mapName;
+	private final long maxTicks;
+	private final Replay replay;
+	private Simulation simulation;
+	private long startTime;
+	private long reportTime;
+	private long reportTicks;
+
+	public HeadlessRuntime(int level, long maxTicks) {
+		this.mapName = "map" + level + ".tmx";
+		this.maxTicks = maxTicks;
+		this.replay = null;
+	}
+
+	public HeadlessRuntime(Replay replay) {
+		this.mapName = replay.getMapName();
+		this.maxTicks = replay.getTicks();
+		this.replay = replay;
+	}
+
+	@Override
+	public void create() {
+		// textures referenced by the map still get created, against a GL that does nothing
+		Gdx.gl = Gdx.gl20 = NullGL.create();
+
+		long loadStart = TimeUtils.millis();
+		simulation = new Simulation(mapName);
+		if (replay != null) {
+			simulation.play(replay);
+		}
+		simulation.create();
+		Gdx.app.log(TAG, mapName + " loaded in " + TimeUtils.timeSinceMillis(loadStart) + " ms, "
+				+ simulation.engine.getEntities().size() + " entities");
+
+		startTime = reportTime = TimeUtils.millis();
+	}
+
+	@Override
+	public void render() {
+		simulation.tick();
+		long ticks = simulation.timestep.getTicks();
+
+		long now = TimeUtils.millis();
+		if (now - reportTime >= REPORT_INTERVAL) {
+			Gdx.app.log(TAG, (ticks - reportTicks) * 1000 / (now - reportTime) + " ticks/s");
+			reportTime = now;
+			reportTicks = ticks;
+		}
+
+		if (ticks == maxTicks) {
+			long elapsed = Math.max(1, now - startTime);
+			Gdx.app.log(TAG, ticks + " ticks in " + elapsed + " ms, " + ticks * 1000 / elapsed + " ticks/s");
+			if (replay != null) {
+				long checksum = Replay.checksum(simulation.engine);
+				Gdx.app.log(TAG, checksum == replay.getChecksum() ? "replay ended in the recorded state"
+						: "replay diverged: checksum " + checksum + ", recorded " + replay.getChecksum());
+			}
+			Gdx.app.exit();
+		}
+	}
+
+	@Override
+	public void dispose() {
+		simulation.dispose();
+	}
+}
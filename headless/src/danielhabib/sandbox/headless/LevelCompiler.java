@@ -0,0 +1,51 @@
+package danielhabib.sandbox.headless;
+
+import java.io.File;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.backends.headless.HeadlessFiles;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.maps.tiled.TiledMap;
+import com.badlogic.gdx.maps.tiled.TmxMapLoader;
+import com.badlogic.gdx.utils.GdxNativesLoader;
+
+import danielhabib.factory.LevelFile;
+
+/**
+ * Usage: {@code LevelCompiler [map.tmx ...]}. Compiles each map, or every
+ * TMX file of the working directory, to a {@link LevelFile} next to it.
+ */
+public class LevelCompiler {
+	public static void main (String[] arg) {
+		init();
+		if (arg.length == 0) {
+			arg = new File(".").list();
+		}
+		for (String name : arg) {
+			if (name.endsWith(".tmx")) {
+				FileHandle target = compile(name);
+				System.out.println(name + " -> " + target.path() + ", " + target.length() + " bytes");
+			}
+		}
+	}
+
+	/** Sets up what loading a map needs, without a display. */
+	public static void init() {
+		GdxNativesLoader.load();
+		if (Gdx.files == null) {
+			Gdx.files = new HeadlessFiles();
+		}
+		// tileset textures get created to find the tile regions, against a GL that does nothing
+		Gdx.gl = Gdx.gl20 = NullGL.create();
+	}
+
+	/** Compiles a map found by internal path; the file goes next to it. */
+	public static FileHandle compile(String mapName) {
+		TiledMap map = new TmxMapLoader().load(mapName);
+		// internal files are read only, but on the desktop they are plain files
+		FileHandle target = new FileHandle(Gdx.files.internal(LevelFile.compiledName(mapName)).file().getAbsoluteFile());
+		LevelFile.write(map, target);
+		map.dispose();
+		return target;
+	}
+}
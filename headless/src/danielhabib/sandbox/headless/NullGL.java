@@ -0,0 +1,44 @@
+package danielhabib.sandbox.headless;
+
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+
+import com.badlogic.gdx.graphics.GL20;
+
+/**
+ * A {@link GL20}, or any other interface, where every call does nothing and
+ * returns 0, false or null.
+ */
+public class NullGL {
+
+	public static GL20 create() {
+		return nothing(GL20.class);
+	}
+
+	@SuppressWarnings("unchecked")
+	public static <T> T nothing(Class<T> type) {
+		return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, new InvocationHandler() {
+			@Override
+			public Object invoke(Object proxy, Method method, Object[] args) {
+				Class<?> returnType = method.getReturnType();
+				if (returnType == boolean.class) {
+					return false;
+				}
+				if (returnType == int.class) {
+					return 0;
+				}
+				if (returnType == long.class) {
+					return 0L;
+				}
+				if (returnType == float.class) {
+					return 0f;
+				}
+				if (returnType == double.class) {
+					return 0d;
+				}
+				return null;
+			}
+		});
+	}
+}
@@ -0,0 +1,143 @@
+package danielhabib.sandbox.headless;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.Writer;
+
+import com.badlogic.gdx.Gdx;
+import com.badlogic.gdx.files.FileHandle;
+import com.badlogic.gdx.graphics.Pixmap;
+import com.badlogic.gdx.graphics.PixmapIO;
+import com.badlogic.gdx.graphics.g2d.PixmapPacker;
+import com.badlogic.gdx.math.MathUtils;
+import com.badlogic.gdx.math.Rectangle;
+import com.badlogic.gdx.utils.Array;
+import com.badlogic.gdx.utils.GdxRuntimeException;
+import com.badlogic.gdx.utils.ObjectMap;
+import com.badlogic.gdx.utils.StreamUtils;
+import com.badlogic.gdx.utils.XmlReader;
+import com.badlogic.gdx.utils.XmlReader.Element;
+
+import danielhabib.factory.Sprites;
+
+/**
+ * Usage: {@code SpritePacker [image.png ...]}. Packs the images into
+ * {@link Sprites#ATLAS} and its pages, each a region named after its path
+ * without the extension. Without arguments, packs the image of every
+ * tileset of the TMX maps in the working directory.
+ */
+public class SpritePacker {
+	/** Largest page; each is then cropped to the power of two its sprites need. */
+	private static final int PAGE_SIZE = 1024;
+	/** Around each image, filled with its edge so filtering never reads a neighbor. */
+	private static final int PADDING = 2;
+
+	public static void main(String[] arg) {
+		LevelCompiler.init();
+		Array<String> images = arg.length == 0 ? tilesetImages(new File(".").list()) : new Array<String>(arg);
+		FileHandle target = pack(images, Gdx.files.internal(Sprites.ATLAS));
+		System.out.println(images.size + " images -> " + target.path());
+	}
+
+	/** The images the tilesets of the maps use, by internal path, sorted. */
+	public static Array<String> tilesetImages(String[] names) {
+		Array<String> images = new Array<String>();
+		XmlReader xml = new XmlReader();
+		for (String name : names) {
+			if (!name.endsWith(".tmx")) {
+				continue;
+			}
+			FileHandle map = Gdx.files.internal(name);
+			try {
+				for (Element tileset : xml.parse(map).getChildrenByName("tileset")) {
+					Element image = tileset.getChildByName("image");
+					if (image == null) {
+						throw new GdxRuntimeException("Tileset " + tileset.get("name") + " of " + name
+								+ " has no single image");
+					}
+					String path = map.parent().child(image.get("source")).path();
+					if (!images.contains(path, false)) {
+						images.add(path);
+					}
+				}
+			} catch (IOException ex) {
+				throw new GdxRuntimeException("Error reading " + map, ex);
+			}
+		}
+		images.sort();
+		return images;
+	}
+
+	/** Packs images found by internal path; the atlas is written where given, its pages next to it. */
+	public static FileHandle pack(Array<String> images, FileHandle atlas) {
+		// internal files are read only, but on the desktop they are plain files
+		FileHandle target = new FileHandle(atlas.file().getAbsoluteFile());
+		PixmapPacker packer = new PixmapPacker(PAGE_SIZE, PAGE_SIZE, Pixmap.Format.RGBA8888, PADDING, true);
+		try {
+			for (String image : images) {
+				Pixmap pixmap = new Pixmap(Gdx.files.internal(image));
+				packer.pack(Sprites.regionName(image), pixmap);
+				pixmap.dispose();
+			}
+
+			Array<PixmapPacker.Page> pages = packer.getPages();
+			String[] pageNames = new String[pages.size];
+			int[] sizes = new int[pages.size * 2];
+			for (int i = 0; i < pages.size; i++) {
+				pageNames[i] = target.nameWithoutExtension() + (pages.size > 1 ? "_" + i : "") + ".png";
+				for (Rectangle rect : pages.get(i).getRects().values()) {
+					int right = (int) (rect.x + rect.width) + PADDING;
+					int bottom = (int) (rect.y + rect.height) + PADDING;
+					sizes[i * 2] = Math.max(sizes[i * 2], MathUtils.nextPowerOfTwo(right));
+					sizes[i * 2 + 1] = Math.max(sizes[i * 2 + 1], MathUtils.nextPowerOfTwo(bottom));
+				}
+				Pixmap page = new Pixmap(sizes[i * 2], sizes[i * 2 + 1], Pixmap.Format.RGBA8888);
+				// blending is global to every pixmap
+				Pixmap.Blending blending = Pixmap.getBlending();
+				Pixmap.setBlending(Pixmap.Blending.None);
+				try {
+					page.drawPixmap(pages.get(i).getPixmap(), 0, 0);
+				} finally {
+					Pixmap.setBlending(blending);
+				}
+				PixmapIO.writePNG(target.sibling(pageNames[i]), page);
+				page.dispose();
+			}
+			write(pages, pageNames, sizes, target);
+			return target;
+		} finally {
+			packer.dispose();
+		}
+	}
+
+	/** Writes the regions in the text format TextureAtlas reads. */
+	static void write(Array<PixmapPacker.Page> pages, String[] pageNames, int[] sizes, FileHandle file) {
+		Writer writer = file.writer(false, "UTF-8");
+		try {
+			StringBuilder out = new StringBuilder();
+			for (int i = 0; i < pages.size; i++) {
+				out.append('\n').append(pageNames[i]).append('\n');
+				out.append("size: ").append(sizes[i * 2]).append(',').append(sizes[i * 2 + 1]).append('\n');
+				out.append("format: RGBA8888\nfilter: Nearest,Nearest\nrepeat: none\n");
+				for (ObjectMap.Entry<String, Rectangle> entry : pages.get(i).getRects()) {
+					int x = (int) entry.value.x;
+					int y = (int) entry.value.y;
+					int width = (int) entry.value.width;
+					int height = (int) entry.value.height;
+					out.append(entry.key).append('\n');
+					out.append("  rotate: false\n");
+					out.append("  xy: ").append(x).append(", ").append(y).append('\n');
+					out.append("  size: ").append(width).append(", ").append(height).append('\n');
+					out.append("  orig: ").append(width).append(", ").append(height).append('\n');
+					out.append("  offset: 0, 0\n");
+					out.append("  index: -1\n");
+				}
+			}
+			writer.write(out.toString());
+		} catch (IOException ex) {
+			throw new GdxRuntimeException("Error writing " + file, ex);
+		} finally {
+			StreamUtils.closeQuietly(writer);
+		}
+	}
+}
@@ -0,0 +1,38 @@
+package danielhabib.sandbox.headless;
+
+import java.lang.management.ManagementFactory;
+
+import com.sun.management.ThreadMXBean;
+
+import danielhabib.sandbox.systems.AllocationCounter;
+
+/** Bytes allocated by the calling thread, as counted by HotSpot; the desktop launcher uses it too. */
+public class ThreadAllocationCounter implements AllocationCounter {
+	private final ThreadMXBean threads;
+
+	private ThreadAllocationCounter(ThreadMXBean threads) {
+		this.threads = threads;
+	}
+
+	/** The VM's counter, or {@link AllocationCounter#NONE} when it is not HotSpot. */
+	public static AllocationCounter find() {
+		try {
+			Object threads = ManagementFactory.getThreadMXBean();
+			if (threads instanceof ThreadMXBean) {
+				ThreadMXBean hotspot = (ThreadMXBean) threads;
+				if (hotspot.isThreadAllocatedMemorySupported()) {
+					hotspot.setThreadAllocatedMemoryEnabled(true);
+					return new ThreadAllocationCounter(hotspot);
+				}
+			}
+		} catch (Throwable ex) {
+			// not a HotSpot VM
+		}
+		return NONE;
+	}
+
+	@Override
+	public long get() {
+		return threads.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+}